@@ -15,17 +15,63 @@ import ghidra.program.model.symbol.Namespace;
 import ghidra.program.model.symbol.SourceType;
 import ghidra.program.model.symbol.SymbolTable;
 import ghidra.util.exception.CancelledException;
-
-import org.json.*;
+import ghidra.util.exception.InvalidInputException;
+import ghidra.util.task.TaskMonitor;
+
+import il2cppdump.ClassFilter;
+import il2cppdump.DefinitionSource;
+import il2cppdump.DumpCache;
+import il2cppdump.DumpIndex;
+import il2cppdump.DumpReader;
+import il2cppdump.ImportPlan;
+import il2cppdump.Progress;
+import il2cppdump.REMethod;
+import il2cppdump.RETypeDefinition;
+import il2cppdump.StringTable;
+import il2cppdump.TypeLayouts;
+import il2cppdump.TypeLookup;
+import il2cppdump.TypeTable;
 
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryType;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class IL2CPPDumpImporter extends GhidraScript {
 
@@ -37,30 +83,112 @@ public class IL2CPPDumpImporter extends GhidraScript {
 	static public CategoryPath category = new CategoryPath("/IL2CPP_Types");
 	static public HashMap<String, DataType> valueTypes;
 
-	private int classesAdded;
+	private static final int METHOD_BATCH_SIZE = 2048;
+	private static final int TYPE_COMMIT_INTERVAL = 1024;
+	// Saving a checkpoint drops the undo history and takes a while on large programs, so the
+	// long method phase only saves this often
+	private static final long CHECKPOINT_INTERVAL = TimeUnit.MINUTES.toNanos(15);
+	// Parallel type phase: smaller plans aren't worth the merge, and types referenced by at
+	// least this many others are built up front since they'd tie everything together
+	private static final int PARALLEL_TYPE_THRESHOLD = 4096;
+	private static final int SHARED_TYPE_FAN_IN = 16;
+	private static final LayoutField[] NO_FIELDS = new LayoutField[0];
+
+	private final AtomicInteger classesAdded = new AtomicInteger();
 	private int classesToAdd;
 	private String classFilter;
-	private BufferedWriter logWriter;
+	private ClassFilter filter = ClassFilter.parse(null);
+	private ImportLog log;
+
+	// Definitions being imported, built from typeTable's rows as parseClass reaches them
+	private Map<String, ImportedType> typeMap;
+	// The dump (or its cache) types are read from, typeTable itself for dumps parsed up front
+	private DefinitionSource definitionSource;
+	// Every type read so far, unfiltered imports read the whole dump into it up front
+	private TypeTable typeTable;
+	// Names of this import's dumps and types, every definition of one import shares it
+	private StringTable strings;
+	// The type table as ImportPlan sees it
+	private final TypeLookup types = new TypeLookup() {
+		@Override
+		public TypeTable table() {
+			return typeTable;
+		}
+
+		@Override
+		public int find(String name) {
+			return findType(name);
+		}
 
-	private JSONObject il2cppDump;
-	private HashMap<String, RETypeDefinition> typeMap;
+		@Override
+		public boolean isBuiltIn(String name) {
+			return isValueType(name);
+		}
+	};
+	// Flattened field rows per type, resolved into each definition's layout by getLayout
+	private TypeLayouts layouts;
+	private HashMap<String, Namespace> namespaces = new HashMap<>();
+	private ConcurrentHashMap<SignatureKey, MethodSignature> signatures = new ConcurrentHashMap<>();
+
+	private ImportCheckpoint checkpoint;
+	private int uncommittedTypes;
+	// Committed since the checkpoint was last saved, checkpoint imports only
+	private ArrayList<String> unsavedTypes = new ArrayList<>();
+	private long lastCheckpointSave;
+
+	// Incremental imports only, see diffAgainstPreviousDump
+	private HashSet<String> reusableTypes;
+	private HashSet<String> methodsToImport;
+	// Types resolved from a type archive of an earlier import, null if none was applied
+	private HashSet<String> archivedTypes;
+	// Generic instantiations built as typedefs of a shared structure, instantiation -> shared
+	// structure name. Worked out by planSharedLayouts, read-only afterwards.
+	private Map<String, String> sharedLayoutOf = Map.of();
+	private boolean collapseGenerics;
+	// Shared structures built so far, per build type manager
+	private final ConcurrentHashMap<DataTypeManager, HashMap<String, DataType>> sharedLayouts = new ConcurrentHashMap<>();
+	// Set on the workers of the parallel type phase, each builds into its own manager
+	private final ThreadLocal<DataTypeManager> workerTypeManager = new ThreadLocal<>();
+
+	// Memory-bounded imports only, see trimDefinitions
+	private long definitionBudget;
+	private final AtomicLong residentBytes = new AtomicLong();
+	private final Set<String> evictedTypes = ConcurrentHashMap.newKeySet();
+
+	private final ImportMetrics metrics = new ImportMetrics();
+	private File reportFile;
+
+	// Answers given up front, see loadSettings
+	private final Properties settings = new Properties();
 
 	@Override
 	protected void run() throws Exception {
-		initialize();
-		importIL2CPPDump();
+		try {
+			loadSettings(getScriptArgs());
+			initialize();
+			importIL2CPPDump();
+		} finally {
+			writeReport();
+			if (log != null) {
+				log.close();
+			}
+		}
 	}
 
 	private void initialize() throws Exception {
 		// Fix for MHR Versions >= 16.0.0, which have ASLR enabled.
-		var imageBase = askString("Image Base", "Enter the image base of the executable", "0x140000000");
+		var imageBase = askSetting("imageBase", "Image Base", "Enter the image base of the executable", "0x140000000");
 		currentProgram.setImageBase(toAddr(imageBase), true);
 
 		functionManager = currentProgram.getFunctionManager();
-		builtinTypeManager = state.getTool().getService(DataTypeManagerService.class).getBuiltInDataTypesManager();
+		// There is no tool when running headless, the built-in types are the same though
+		builtinTypeManager = state.getTool() != null
+				? state.getTool().getService(DataTypeManagerService.class).getBuiltInDataTypesManager()
+				: BuiltInDataTypeManager.getDataTypeManager();
 		addressFactory = currentProgram.getAddressFactory();
 		symbolTable = currentProgram.getSymbolTable();
-		typeMap = new HashMap<>();
+		typeMap = new ConcurrentHashMap<>();
+		strings = new StringTable();
 
 		typeManager = currentProgram.getDataTypeManager();
 
@@ -68,14 +196,21 @@ public class IL2CPPDumpImporter extends GhidraScript {
 			throw new Exception("failed to find typemanager");
 		}
 
-		try {
-			var logFile = askFile("Select Log File", "Open");
+		BufferedWriter logWriter = null;
+		var logFile = askFileSetting("log", "Select Log File", "Open", false);
+		if (logFile != null) {
 			logWriter = Files.newBufferedWriter(logFile.toPath(), StandardCharsets.UTF_8);
-		} catch (CancelledException e) {
+		} else {
 			println("No log file selected. Logging exceptions to console.");
-			logWriter = null;
 		}
+		var level = ImportLog.Level.valueOf(settings.getProperty("logLevel", "info").toUpperCase(Locale.ROOT));
+		log = new ImportLog(level, logWriter, this::println);
+
+		registerValueTypes();
+	}
 
+	// Built-in types and the dump's value types that map onto them, added to typeManager
+	private void registerValueTypes() {
 		final var uint8_t = typeManager.addDataType(
 				new TypedefDataType("uint8_t", builtinTypeManager.getDataType("/uchar")),
 				DataTypeConflictHandler.REPLACE_HANDLER);
@@ -203,324 +338,1581 @@ public class IL2CPPDumpImporter extends GhidraScript {
 		valueTypes.put("via.mat4", mat4);
 	}
 
+	// Every question the script asks can be answered up front, as 'key=value' script
+	// arguments or in a properties file passed as 'config=<file>' (arguments win). That's
+	// what lets analyzeHeadless run imports unattended:
+	//   -postScript IL2CPPDumpImporter.java dump=il2cpp_dump.json filter=app disassemble=true
+	// Keys: imageBase, log, logLevel, disassemble, dump, incremental, previousDump, filter,
+	// memoryBudget, resume, checkpoint, typeArchive, typeWorkers and genericLayouts. Headless runs use the
+	// defaults for anything else, or fail if there is none.
+	private void loadSettings(String[] args) throws IOException {
+		var arguments = new Properties();
+		for (var arg : args) {
+			var split = arg.indexOf('=');
+			if (split <= 0) {
+				throw new IllegalArgumentException("Script arguments must be key=value, got: " + arg);
+			}
+			arguments.setProperty(arg.substring(0, split).trim(), arg.substring(split + 1).trim());
+		}
+
+		var config = arguments.getProperty("config");
+		if (config != null) {
+			try (var reader = Files.newBufferedReader(new File(config).toPath(), StandardCharsets.UTF_8)) {
+				settings.load(reader);
+			}
+		}
+		settings.putAll(arguments);
+	}
+
+	private String askSetting(String key, String title, String message, String defaultValue)
+			throws CancelledException {
+		var value = settings.getProperty(key);
+		if (value != null) {
+			return value;
+		}
+
+		if (isRunningHeadless()) {
+			if (defaultValue == null) {
+				throw new IllegalArgumentException("Missing setting '" + key + "' for headless import");
+			}
+			return defaultValue;
+		}
+		return askString(title, message, defaultValue);
+	}
+
+	private boolean askYesNoSetting(String key, String title, String question, boolean defaultValue) {
+		var value = settings.getProperty(key);
+		if (value != null) {
+			return Boolean.parseBoolean(value);
+		}
+		return isRunningHeadless() ? defaultValue : askYesNo(title, question);
+	}
+
+	// Returns null if the file is optional and wasn't given (or the dialog was cancelled)
+	private File askFileSetting(String key, String title, String approveButton, boolean required)
+			throws CancelledException {
+		var value = settings.getProperty(key);
+		if (value != null) {
+			return new File(value);
+		}
+
+		if (isRunningHeadless()) {
+			if (required) {
+				throw new IllegalArgumentException("Missing setting '" + key + "' for headless import");
+			}
+			return null;
+		}
+
+		try {
+			return askFile(title, approveButton);
+		} catch (CancelledException e) {
+			if (required) {
+				throw e;
+			}
+			return null;
+		}
+	}
+
 	private void importIL2CPPDump() throws Exception {
 		boolean runDisassemble = false;
 
-		if (!askYesNo("Close archive",
+		// Only the UI has an archive tree that can freeze
+		if (!isRunningHeadless() && !askYesNo("Close archive",
 				"Do not forget to collapse the exe type archive or ghidra will freeze during a large import\nContinue ?")) {
 			return;
 		}
 
-		if (askYesNo("Auto-Disassemble",
-				"Do you want to automatically run the post import disassemble script after importing?")) {
+		if (askYesNoSetting("disassemble", "Auto-Disassemble",
+				"Do you want to automatically run the post import disassemble script after importing?", false)) {
 			runDisassemble = true;
 		}
 
-		File file = askFile("Select IL2CPP Dump", "Open");
-		var reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
-		il2cppDump = new JSONObject(new JSONTokener(reader));
-		reader.close();
+		File file = askFileSetting("dump", "Select IL2CPP Dump", "Open", true);
+		reportFile = new File(String.format("%s.%s.report.json", file.getPath(),
+				LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))));
+		metrics.fact("dump", file.getName());
+		metrics.fact("dumpBytes", file.length());
+		metrics.fact("program", currentProgram.getName());
+
+		metrics.phase("open dump");
+		openDump(file);
+		layouts = new TypeLayouts(types);
+		metrics.endPhase();
+
+		DefinitionSource previousDump = null;
+		if (askYesNoSetting("incremental", "Incremental Import",
+				"Was this program already imported from an older dump?\nIf yes, only the differences to that dump are applied.",
+				settings.containsKey("previousDump"))) {
+			var previousFile = askFileSetting("previousDump", "Select previous IL2CPP Dump (or its .cache)", "Open", true);
+			metrics.phase("open previous dump");
+			previousDump = openPreviousDump(previousFile);
+			metrics.endPhase();
+		}
 
-		println("JSON Loaded");
-		monitor.initialize(il2cppDump.length(), "Parsing IL2CPP Dump");
+		classFilter = askSetting("filter", "Filter",
+				"Select Class Filter\n(prefixes or globs, separated by commas, '-' excludes)", "app");
+		filter = ClassFilter.parse(classFilter);
+		metrics.fact("filter", classFilter);
+
+		var budget = Integer.parseInt(askSetting("memoryBudget", "Memory Budget",
+				"How many MB of parsed type definitions may stay in memory?\n0 keeps all of them, which is fastest.", "0"));
+		if (budget > 0) {
+			// Access ordered, so iteration starts at the least recently used definition
+			definitionBudget = budget * 1024L * 1024L;
+			typeMap = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true));
+		}
+		metrics.fact("memoryBudgetMB", budget);
+		metrics.fact("incremental", previousDump != null);
+
+		metrics.phase("parse definitions");
+		var keys = getTypeNames();
+		List<String> roots;
+		if (filter.isEmpty()) {
+			preloadDefinitions(keys);
+			roots = new ArrayList<>(keys);
+		} else {
+			roots = keys
+					.stream()
+					.filter(filter::matches)
+					.collect(Collectors.toList());
+		}
 
-		int count = il2cppDump.length();
-		int i = 0;
-		for (var key : il2cppDump.keySet()) {
-			typeMap.put(key, new RETypeDefinition(key, il2cppDump.getJSONObject(key)));
-			println(String.format("parsed (%d/%d)", i++, count));
-			monitor.incrementProgress(1);
+		// Work out everything that needs to be imported before touching the program, so
+		// the import itself is a flat loop with an exact amount of work.
+		metrics.phase("plan");
+		var plan = planImport(roots);
+		log.info("Planned %d types for %d matching the filter", plan.size(), roots.size());
+		metrics.fact("typesPlanned", plan.size());
+
+		if (previousDump != null) {
+			metrics.phase("diff");
+			diffAgainstPreviousDump(plan, previousDump);
+			previousDump = null;
 		}
+		planSharedLayouts(plan);
+		metrics.endPhase();
 
-		println("JSON parsed");
-		monitor.checkCancelled();
-		il2cppDump.clear();
-		System.gc();
+		openCheckpoint(file);
 
-		classFilter = askString("Filter", "Select Class Filter", "app");
+		var archiveFile = getTypeArchiveFile(file);
+		if (archiveFile != null && archiveFile.isFile()) {
+			metrics.phase("apply type archive");
+			archivedTypes = applyTypeArchive(archiveFile);
+			metrics.endPhase();
+		}
+		metrics.fact("typeArchiveApplied", archivedTypes != null);
 
-		var keys = typeMap.keySet();
-		if (classFilter == null || classFilter.isEmpty()) {
-			classesToAdd = keys.size();
+		metrics.phase("types");
+		classesToAdd = plan.size();
+		monitor.initialize(classesToAdd, "Importing IL2CPP Dump");
+		var importStart = System.nanoTime();
 
-			// Add all types + Methods to ghidra
-			for (var key : keys) {
-				parseClass(key);
-			}
-		} else {
-			Set<String> filtered = keys
-					.stream()
-					.filter((name) -> name.startsWith(classFilter))
-					.collect(Collectors.toSet());
-			classesToAdd = filtered.size();
-			monitor.initialize(classesToAdd, "Importing IL2CPP Dump");
+		// Opt-in, types are built one by one on the script's thread unless asked otherwise
+		var workers = Integer.parseInt(settings.getProperty("typeWorkers", "1"));
+		if (workers > 1) {
+			buildTypesInParallel(plan, workers);
+		}
 
-			for (var key : filtered) {
-				parseClass(key);
+		// Add all types + Methods to ghidra. After a parallel build only whatever it left
+		// over is still missing here.
+		for (var key : plan) {
+			monitor.checkCancelled();
+			parseClass(key);
+
+			// parseClass flushes committed types itself, but only here between roots is
+			// nothing half built, so this is where the memory budget is enforced
+			trimDefinitions();
+
+			var added = classesAdded.get();
+			if ((added & 0xFF) == 0 && added > 0) {
+				var elapsed = System.nanoTime() - importStart;
+				var remaining = elapsed / added * (classesToAdd - added);
+				monitor.setMessage(String.format("Importing IL2CPP Dump (ETA %s)", formatDuration(remaining)));
 			}
 		}
+
+		saveCheckpoint(0);
+		metrics.fact("typesImported", classesAdded.get());
+
+		if (archiveFile != null && archivedTypes == null) {
+			metrics.phase("export type archive");
+			exportTypeArchive(archiveFile, plan);
+		}
+
+		metrics.phase("methods");
+		importMethods(plan);
+		metrics.endPhase();
+
+		if (checkpoint != null) {
+			checkpoint.delete();
+			checkpoint = null;
+		}
+		definitionSource = null;
+		typeTable = null;
+		layouts = null;
 		System.gc();
 
 		if (runDisassemble) {
+			metrics.phase("post import disassemble");
 			runScript("PostImportDisassemble.java", state);
+			metrics.endPhase();
 		}
 	}
 
-	public boolean isValueType(String name) {
-		return valueTypes.containsKey(name);
-	}
+	private void writeReport() {
+		if (reportFile == null) {
+			return;
+		}
 
-	public DataType getValueType(String objectName) {
-		return valueTypes.get(objectName);
+		try {
+			metrics.writeReport(reportFile);
+			log.info("Wrote import report to %s", reportFile.getName());
+		} catch (IOException e) {
+			log.error("report", "error writing import report: " + reportFile.getName(), e);
+		}
 	}
 
-	private DataType getValueTypeOrType(String name) {
-		// Top-level types start with a '/', should only occur for built-in types.
-		if (name.charAt(0) == '/') {
-			var dt = typeManager.getDataType(name);
-			if (dt == null) {
-				println("Failed to find datatype:" + name);
-			}
-			return dt;
-		}
+	// The manager types are built into, a worker's own one during the parallel type phase
+	private DataTypeManager getBuildTypeManager() {
+		var manager = workerTypeManager.get();
+		return manager != null ? manager : typeManager;
+	}
 
-		if (valueTypes.containsKey(name)) {
-			return valueTypes.get(name);
-		}
+	// Timed addDataType into the build type manager, see ImportMetrics
+	private DataType addDataType(DataType type, DataTypeConflictHandler handler) {
+		var start = System.nanoTime();
+		var added = getBuildTypeManager().addDataType(type, handler);
+		metrics.record("addDataType", start);
+		return added;
+	}
 
-		// Type is not a ValueType
-		RETypeDefinition type = typeMap.getOrDefault(name, null);
-		if (type != null) {
-			parseClass(name);
-			var dt = typeMap.get(name).dataType;
-			if (dt == null) {
-				// Should only happen in case an Exception is thrown in parseClass
-				println("dt is null for " + name + " after parsing");
+	private void loadDump(File file) throws Exception {
+		// The dump is streamed type by type straight into the type table. Only the table
+		// stays in memory, never a DOM of the whole file, and it's where definitions are
+		// read from for the rest of the import.
+		monitor.initialize(file.length(), "Parsing IL2CPP Dump");
+
+		var table = new TypeTable(strings);
+		try (var reader = new DumpReader(new FileInputStream(file))) {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				var key = reader.nextName();
+				table.add(key, reader);
+				monitor.setProgress(reader.position());
+				monitor.checkCancelled();
 			}
-
-			return dt;
+			reader.endObject();
 		}
 
-		return null;
+		typeTable = table;
+		definitionSource = table;
+		log.info("JSON parsed, %d types", table.size());
 	}
 
-	private DataType getPassingType(String name, boolean forField) {
-		// We need to handle Enums, ValueTypes, and all other types separately.
-		// Enums are the only non-ValueTypes that are usually passed by value and stored in
-		// their value form too.
-		// ValueTypes are stored in value form so we use "built-in" ghidra types to
-		// simplify things.
-		// All other types are stored on the heap and are only accessed via pointers.
-		DataType type = getValueTypeOrType(name);
+	private void openDump(File file) throws Exception {
+		typeTable = new TypeTable(strings);
+		if (file.length() > Integer.MAX_VALUE) {
+			// Too large for a single mapping, fall back to parsing everything up front.
+			loadDump(file);
+			return;
+		}
 
-		// Field ValueTypes are always stored in their value form, even if they are larger
-		// than 8 bytes. Return types/parameters on the other hand are always passed as
-		// pointers if they are larger than 8 bytes.
-		if (isValueType(name) && (forField || type.getLength() <= 8)) {
-			return type;
+		// The cache sits next to the dump and is rebuilt whenever the dump changes. It holds
+		// the already parsed definitions, so later runs skip tokenizing the JSON entirely.
+		var cacheFile = new File(file.getPath() + ".cache");
+		try {
+			definitionSource = DumpCache.open(cacheFile, file, strings, progress());
+		} catch (IOException e) {
+			log.error("dump cache", "error opening dump cache: " + cacheFile.getName(), e);
 		}
 
-		var typedef = typeMap.get(name);
-		if (typedef == null || typedef.isEnum) {
-			return type;
+		if (definitionSource != null) {
+			log.info("Loaded dump cache with %d types", definitionSource.size());
+			return;
 		}
-		return typedef.pointerTo;
-	}
 
-	private DataType getPassingType(String name) {
-		return getPassingType(name, false);
-	}
+		// Only remember where each type lives in the file. Definitions are decoded the
+		// first time something asks for them, so a filtered import only ever parses the
+		// types it actually reaches.
+		monitor.initialize(file.length(), "Indexing IL2CPP Dump");
+		var index = new DumpIndex(file, strings, progress());
+		definitionSource = index;
+		log.info("Indexed %d types", index.size());
 
-	private Namespace getOrCreateNamespace(String name) {
-		// Packed into a function because I hate java's enforced exception handling or
-		// continued propagating.
 		try {
-			return symbolTable.getOrCreateNameSpace(currentProgram.getGlobalNamespace(), name, SourceType.IMPORTED);
-		} catch (Exception e) {
-			println("error getOrCreateNamespace:" + e.getMessage());
-			return null;
-		}
-	}
+			log.info("Dump changed or no cache found, building %s", cacheFile.getName());
+			DumpCache.build(index, file, cacheFile, progress());
 
-	private void parseClass(String name) {
-		if (!typeMap.containsKey(name)) {
-			return;
+			var cache = DumpCache.open(cacheFile, file, strings, progress());
+			if (cache != null) {
+				definitionSource = cache;
+			}
+		} catch (IOException e) {
+			// Not fatal, the index works just as well, only slower next time
+			log.error("dump cache", "error building dump cache: " + cacheFile.getName(), e);
 		}
+	}
 
-		RETypeDefinition definition = typeMap.get(name);
-		if (definition.dataType != null) {
-			return;
+	// Reads into the same string table as the new dump, diffAgainstPreviousDump compares ids
+	// and interned flags across both
+	private DefinitionSource openPreviousDump(File file) throws Exception {
+		if (file.getName().endsWith(".cache")) {
+			return DumpCache.openStandalone(file, strings);
 		}
 
-		// Not actually an accurate display of progress if a filter is used but at least
-		// gives me an idea of how much was already completed lol.
-		println(String.format("(%d/%d) Parsing class %s", classesAdded, classesToAdd, name));
-		classesAdded++;
-		monitor.incrementProgress(1);
-		if (!name.startsWith(classFilter)) {
-			classesToAdd++;
-			monitor.setMaximum(classesToAdd);
+		if (file.length() > Integer.MAX_VALUE) {
+			throw new IOException("Previous dump is too large to index, select its .cache instead");
 		}
 
-		if (definition.isValueType && !definition.isEnum) {
-			parseValueType(name, definition);
-		} else {
-			parseReferenceType(name, definition);
+		var cache = DumpCache.open(new File(file.getPath() + ".cache"), file, strings, progress());
+		if (cache != null) {
+			return cache;
 		}
 
-		println(String.format("parsing %s done", name));
+		monitor.initialize(file.length(), "Indexing previous IL2CPP Dump");
+		return new DumpIndex(file, strings, progress());
 	}
 
-	private void parseReferenceType(String name, RETypeDefinition definition) {
-		// Create ghidra type from type definition
-		DataType type = new StructureDataType(name, definition.size);
-
-		// Enum types should be added as an actual enum, not a structure. They DO have a
-		// structure representation however it is only very rarely used so I don't see
-		// the point of adding that.
-		// Also, this 'if' is inside the hasParent 'if' because enums always have
-		// System.Enum as parent
-		if (definition.isEnum) {
-			var enumType = new EnumDataType(name, getValueType(definition.underlyingType).getLength());
+	// Compares the planned types against the dump the program was imported from before.
+	// Types whose layout (and whose parents' layouts) did not change are bound to the
+	// existing program types instead of being rebuilt, only added or changed methods are
+	// imported, and functions of methods that changed or disappeared are removed.
+	private void diffAgainstPreviousDump(List<String> plan, DefinitionSource previous) throws Exception {
+		monitor.initialize(plan.size(), "Comparing against previous dump");
+
+		reusableTypes = new HashSet<>();
+		methodsToImport = new HashSet<>();
+		var staleMethods = new ArrayList<PendingMethod>();
+		int addedTypes = 0;
+		int changedTypes = 0;
+		int removedTypes = 0;
+
+		// The plan lists parents before their children, so a parent's verdict is always
+		// known by the time its children are compared.
+		for (var name : plan) {
+			monitor.checkCancelled();
+			monitor.incrementProgress(1);
 
-			for (var field : definition.fields) {
-				if (!field.isStatic()) {
-					continue;
+			// Only looked at once, built from the row without keeping it around
+			var definition = typeTable.load(findType(name));
+			var old = previous.contains(name) ? new ImportedType(previous.load(name)) : null;
+			if (old == null) {
+				addedTypes++;
+				for (var method : definition.methods) {
+					methodsToImport.add(name + "::" + method.key());
 				}
-				
-				try {
-					enumType.add(field.name, field.defaultValue);
-				} catch (IllegalArgumentException e) {
-					println(e.getMessage());
-					println(e.getStackTrace()[0].toString());
+				continue;
+			}
+
+			// Inherited fields are copied into every subclass, so a changed parent means
+			// the child has to be rebuilt as well.
+			var parentReusable = !definition.hasParent() || findType(definition.parent()) < 0
+					|| reusableTypes.contains(definition.parent());
+			if (parentReusable && definition.hasSameLayout(old)) {
+				reusableTypes.add(name);
+			} else {
+				changedTypes++;
+			}
+
+			var oldMethods = new HashMap<String, REMethod>();
+			for (var method : old.methods) {
+				oldMethods.put(method.key(), method);
+			}
+
+			for (var method : definition.methods) {
+				var oldMethod = oldMethods.remove(method.key());
+				if (oldMethod == null || !oldMethod.isSameAs(method)) {
+					methodsToImport.add(name + "::" + method.key());
+					// Moved or changed signature, the old function goes either way. Left in
+					// place, the method phase would take it for a shared generic function.
+					if (oldMethod != null) {
+						staleMethods.add(new PendingMethod(oldMethod, old));
+					}
 				}
+			}
 
+			for (var removed : oldMethods.values()) {
+				staleMethods.add(new PendingMethod(removed, old));
 			}
+		}
 
-			definition.size = enumType.getLength();
+		// Types that matched the filter last time but are gone now
+		for (var name : previous.names()) {
+			// Filter first, so this doesn't decode the whole new dump
+			if (!filter.matches(name) || definitionSource.contains(name)) {
+				continue;
+			}
 
-			// Overwrite ghidra type of type definition
-			type = enumType;
+			var old = new ImportedType(previous.load(name));
+			for (var method : old.methods) {
+				staleMethods.add(new PendingMethod(method, old));
+			}
+
+			removeDataType(name);
+			removeDataType("Box<" + name + ">");
+			removedTypes++;
 		}
 
-		// Register in archive before doing any new recursive parsing
-		definition.dataType = typeManager.addDataType(type, DataTypeConflictHandler.REPLACE_HANDLER);
-		definition.pointerTo = typeManager.addDataType(new PointerDataType(definition.dataType),
-				DataTypeConflictHandler.REPLACE_HANDLER);
+		for (var stale : staleMethods) {
+			if (stale.method.address != 0) {
+				removeMethodSymbols(stale.method, stale.parent.name);
+			}
+		}
+
+		log.info("Types: %d added, %d changed, %d removed, %d unchanged", addedTypes, changedTypes,
+				removedTypes, reusableTypes.size());
+		log.info("Methods: %d to import, %d stale removed", methodsToImport.size(), staleMethods.size());
+	}
 
-		// Parse parent class before parsing current class
-		if (definition.hasParent()) {
-			parseClass(definition.parent);
+	// The type archive is keyed by the dump's content, the filter and the generic layout
+	// mode, so every binary the same dump is imported into shares it, but it's never applied
+	// to a different type set.
+	private File getTypeArchiveFile(File dump) {
+		// Opt-in, it's a sizeable file next to the dump
+		if (!Boolean.parseBoolean(settings.getProperty("typeArchive", "false"))) {
+			return null;
 		}
 
-		// Add all fields to the class
-		if (definition.dataType instanceof Structure) {
-			if (definition.name.endsWith("[]")) {
-				addFieldsToArrayType(definition, (Structure) definition.dataType);
-			} else {
-				addFieldsOfClassToType(definition, (Structure) definition.dataType, false);
+		var digest = DumpCache.sha256();
+		if (definitionSource instanceof DumpCache cache) {
+			digest.update(cache.dumpHash());
+		} else {
+			// No cache (dump too large or unwritable), don't hash gigabytes just for a name
+			digest.update((dump.length() + ":" + dump.lastModified()).getBytes(StandardCharsets.UTF_8));
+		}
+		digest.update(classFilter.getBytes(StandardCharsets.UTF_8));
+		// The generic layout mode changes which types there are
+		digest.update((byte) 0);
+		digest.update(settings.getProperty("genericLayouts", "off").getBytes(StandardCharsets.UTF_8));
+		var key = HexFormat.of().formatHex(digest.digest(), 0, 8);
+		return new File(dump.getPath() + "." + key + ".gdt");
+	}
+
+	// Resolves every type of the archive into the program in one go, parseClass then only
+	// binds the definitions instead of building each type. Returns null if the archive
+	// can't be used, the types are built as usual then and the archive is written again.
+	private HashSet<String> applyTypeArchive(File archiveFile) throws CancelledException {
+		FileDataTypeManager archive = null;
+		try {
+			archive = FileDataTypeManager.openFileArchive(archiveFile, false);
+			var types = new ArrayList<DataType>();
+			archive.getAllDataTypes(types);
+
+			monitor.initialize(types.size(), "Applying type archive");
+			var start = System.nanoTime();
+			typeManager.addDataTypes(types, DataTypeConflictHandler.REPLACE_HANDLER, monitor);
+			metrics.record("addDataTypes", start);
+			commit();
+
+			var names = new HashSet<String>();
+			for (var type : types) {
+				names.add(type.getName());
+			}
+			log.info("Applied %d types from %s", types.size(), archiveFile.getName());
+			return names;
+		} catch (IOException e) {
+			log.error("type archive", "error applying type archive: " + archiveFile.getName(), e);
+			return null;
+		} finally {
+			if (archive != null) {
+				archive.close();
 			}
 		}
+	}
 
-		// Add all methods
-		if (!definition.methods.isEmpty()) {
-			for (var method : definition.methods) {
-				parseMethod(method, definition);
+	// Copies the types of this import into a file archive next to the dump, for the next
+	// import of the same dump and filter. Pointers, typedefs and everything else the types
+	// refer to come along with them.
+	private void exportTypeArchive(File archiveFile, List<String> plan) throws CancelledException {
+		var types = new ArrayList<DataType>();
+		for (var name : plan) {
+			for (var typeName : List.of(name, "Box<" + name + ">")) {
+				var type = typeManager.getDataType(CategoryPath.ROOT, typeName);
+				if (type != null) {
+					types.add(type);
+				}
 			}
 		}
+
+		// Written under another name first, an interrupted export never looks like a valid archive
+		var tempFile = new File(archiveFile.getParentFile(), "tmp." + archiveFile.getName());
+		tempFile.delete();
+		FileDataTypeManager archive = null;
+		try {
+			monitor.initialize(types.size(), "Writing type archive");
+			archive = FileDataTypeManager.createFileArchive(tempFile);
+			var transaction = archive.startTransaction("Add IL2CPP types");
+			try {
+				archive.addDataTypes(types, DataTypeConflictHandler.REPLACE_HANDLER, monitor);
+			} finally {
+				archive.endTransaction(transaction, true);
+			}
+			archive.save();
+			archive.close();
+			archive = null;
+
+			Files.move(tempFile.toPath(), archiveFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			log.info("Wrote %d types to %s", types.size(), archiveFile.getName());
+		} catch (IOException e) {
+			// Not fatal, the next import just builds the types again
+			log.error("type archive", "error writing type archive: " + archiveFile.getName(), e);
+		} finally {
+			if (archive != null) {
+				archive.close();
+			}
+			tempFile.delete();
+		}
 	}
 
-	private void parseValueType(String name, RETypeDefinition definition) {
-		var valueTypeSize = definition.size - typeMap.get("System.Object").size;
-		if (valueTypeSize <= 0) {
-			logError("Value type size is less than or equal to 0: " + name);
-			
-			// We still need to register the type so just parse it as a reference type
-			parseReferenceType(name, definition);
-			return;
+	// Points a definition at the type a previous import already created
+	private boolean bindExisting(ImportedType definition) {
+		var existing = findExisting(definition);
+		if (existing == null) {
+			return false;
 		}
 
-		// For value types we create both a structure for the value type itself and a
-		// structure for its boxed form (i.e. when converted to a System.Object)
-		DataType boxedType = new StructureDataType("Box<" + name + ">", definition.size);
-		DataType valueType = new StructureDataType(name, definition.size - typeMap.get("System.Object").size);
+		definition.dataType = existing;
+		definition.pointerTo = addDataType(new PointerDataType(existing),
+				DataTypeConflictHandler.DEFAULT_HANDLER);
+		return true;
+	}
 
-		// Register in archive before doing any new recursive parsing
-		definition.dataType = typeManager.addDataType(valueType, DataTypeConflictHandler.REPLACE_HANDLER);
-		definition.pointerTo = typeManager.addDataType(new PointerDataType(definition.dataType),
-				DataTypeConflictHandler.REPLACE_HANDLER);
-			
-		var boxedGhidraType = typeManager.addDataType(boxedType, DataTypeConflictHandler.REPLACE_HANDLER);
-		typeManager.addDataType(new PointerDataType(boxedGhidraType), DataTypeConflictHandler.REPLACE_HANDLER);
+	// Same for a definition that was evicted after its type was committed. Only reads from
+	// the type manager, reloads can happen on the signature worker threads.
+	private boolean rebindEvicted(ImportedType definition) {
+		var existing = findExisting(definition);
+		if (existing == null) {
+			return false;
+		}
+
+		definition.dataType = existing;
+		definition.pointerTo = typeManager.getPointer(existing);
+		return true;
+	}
 
-		// Parse parent class before parsing current class
-		if (definition.hasParent()) {
-			parseClass(definition.parent);
+	private DataType findExisting(ImportedType definition) {
+		var existing = typeManager.getDataType(CategoryPath.ROOT, definition.name);
+		if (existing == null || definition.isEnum != (existing instanceof ghidra.program.model.data.Enum)) {
+			return null;
 		}
 
-		// Add all fields to the class
-		addFieldsOfClassToType(definition, (Structure) boxedGhidraType, false);
-		addFieldsOfClassToType(definition, (Structure) definition.dataType, true);
+		if (definition.isEnum) {
+			definition.size = existing.getLength();
+		}
+		return existing;
+	}
 
-		// Add all methods
-		if (!definition.methods.isEmpty()) {
-			for (var method : definition.methods) {
-				parseMethod(method, definition);
-			}
+	private void removeDataType(String name) {
+		var existing = typeManager.getDataType(CategoryPath.ROOT, name);
+		if (existing != null) {
+			typeManager.remove(existing, monitor);
 		}
 	}
 
-	private void handleStaticGetter(RETypeDefinition parent, REMethod method) {
+	// Removes the function and labels a previous import created for a method, as long as
+	// nothing else has claimed the address since.
+	private void removeMethodSymbols(REMethod method, String parentName) {
+		var address = toAddr(method.address);
 		try {
-			var fieldName = method.name.substring(4);
-			var fieldType = getPassingType(method.returnType);
+			var function = functionManager.getFunctionAt(address);
+			if (function != null && function.getName().equals(method.name)
+					&& function.getParentNamespace().getName().equals(parentName)) {
+				functionManager.removeFunction(address);
+			}
 
-			disassemble(toAddr(method.address));
-			var instruction = getInstructionAt(toAddr(method.address));
-			if (instruction == null) {
-				return;
+			for (var symbol : symbolTable.getSymbols(address)) {
+				if (symbol.getName().equals(method.name) && symbol.getParentNamespace().getName().equals(parentName)) {
+					symbol.delete();
+				}
 			}
+		} catch (Exception e) {
+			log.error("stale method", "error removing stale method: " + parentName + "." + method.name, e);
+		}
+	}
 
-			if (!instruction.getMnemonicString().equals("MOV")) {
-				return;
+	// The checkpoint lives next to the dump, one per program, and only matches the same dump
+	// imported with the same filter. Checkpoints are opt-in, saving the program as the import
+	// goes drops its undo history and needs a program that can be saved.
+	private void openCheckpoint(File dump) {
+		var programName = currentProgram.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+		var checkpointFile = new File(dump.getPath() + "." + programName + ".checkpoint");
+		var key = String.format("%d:%d:%s", dump.length(), dump.lastModified(), classFilter);
+
+		try {
+			checkpoint = ImportCheckpoint.load(checkpointFile, key);
+			if (checkpoint != null && !askYesNoSetting("resume", "Resume Import", String.format(
+					"An earlier import of this dump stopped after %d types and %d method batches.\nResume it?",
+					checkpoint.getCompletedTypeCount(), checkpoint.getCompletedMethodBatches()), true)) {
+				checkpoint.delete();
+				checkpoint = null;
 			}
 
-			if (!instruction.getNext().getMnemonicString().equals("RET")) {
-				return;
+			if (checkpoint == null && askYesNoSetting("checkpoint", "Checkpoint Import",
+					"Save the program after each phase of the import, so it can be resumed if Ghidra crashes or the script is cancelled?\nSaving drops the undo history of the import.",
+					false)) {
+				checkpoint = ImportCheckpoint.create(checkpointFile, key);
 			}
+			lastCheckpointSave = System.nanoTime();
+		} catch (IOException e) {
+			log.error("checkpoint",
+					"error opening checkpoint, the import won't be resumable: " + checkpointFile.getName(), e);
+			checkpoint = null;
+		}
+	}
 
-			var addr = (Address) instruction.getOpObjects(1)[0];
-			if (addr == null) {
-				return;
+	// Commits the script's transaction and starts a new one. Keeps the amount of pending
+	// changes (and undo data) bounded.
+	private void commit() {
+		flushTypes();
+		trimDefinitions();
+	}
+
+	// The part of commit that's also safe in the middle of parseClass, where definitions
+	// of half built types must stay in memory
+	private void flushTypes() {
+		end(true);
+		start();
+		uncommittedTypes = 0;
+	}
+
+	// A type was built into the program, see flushTypes and saveCheckpoint
+	private void typeCompleted(String name) {
+		if (checkpoint != null) {
+			unsavedTypes.add(name);
+		}
+		if (++uncommittedTypes >= TYPE_COMMIT_INTERVAL) {
+			flushTypes();
+		}
+	}
+
+	// Committing only ends the transaction, after a crash the program reopens from its last
+	// save. So the program is saved before the checkpoint records anything as done, or the
+	// resumed import would skip work that was lost. Without a save there's no checkpoint.
+	// Returns whether the checkpoint was saved.
+	private boolean saveCheckpoint(int methodBatches) {
+		flushTypes();
+		if (checkpoint == null) {
+			return false;
+		}
+
+		try {
+			if (!currentProgram.canSave()) {
+				throw new IOException("Program can't be saved: " + currentProgram.getName());
 			}
+			currentProgram.save("IL2CPP import checkpoint", monitor);
 
-			createLabel(addr, fieldName, getOrCreateNamespace(parent.name), false, SourceType.IMPORTED);
-			createData(addr, fieldType);
-		} catch (Exception e) {
-			// printf("Failed to parse static getter:  %s", e.getMessage());
-			// println();
-			logException("Failed to parse static getter: " + method.name, e);
+			checkpoint.typesCommitted(unsavedTypes);
+			unsavedTypes.clear();
+			if (methodBatches > 0) {
+				checkpoint.methodBatchCommitted(methodBatches);
+			}
+			lastCheckpointSave = System.nanoTime();
+			return true;
+		} catch (IOException | CancelledException e) {
+			log.error("checkpoint", "error saving the checkpoint, the import won't be resumable from here", e);
+			try {
+				checkpoint.close();
+			} catch (IOException closeError) {
+				// Nothing more is written to it either way
+			}
+			checkpoint = null;
+			unsavedTypes.clear();
+			return false;
 		}
 	}
 
-	private void parseMethod(REMethod method, RETypeDefinition parent) {
-		if (method.address == 0) {
+	private void preloadDefinitions(Collection<String> names) throws Exception {
+		// Every type is needed anyway, so read them all into the type table up front on all
+		// cores instead of one by one as the plan reaches them
+		if (definitionSource == typeTable) {
 			return;
 		}
 
-		if (method.flags.contains("Static") && method.name.startsWith("get_")) {
-			handleStaticGetter(parent, method);
+		monitor.initialize(names.size(), "Parsing IL2CPP Dump");
+		typeTable.addAll(definitionSource, new ArrayList<>(names), progress());
+		log.info("Parsed %d types into %d MB", typeTable.size(), typeTable.estimateSize() >> 20);
+	}
+
+	private Collection<String> getTypeNames() {
+		return definitionSource.names();
+	}
+
+	// Row of name in typeTable, read from the dump the first time it's asked for. -1 for
+	// names that aren't in the dump.
+	private int findType(String name) {
+		if (name == null) {
+			return -1;
 		}
 
-		// If there are already symbols here, there are 2 possibilities:
-		// 1. This is a generic function and we don't actually want to have a typed function, 
-		// remove the function if it's there and add labels and a generic function to mark it's been acknowledged
-		// 2. There is a symbol that was placed there automatically by ghidra (SourceType.DEFAULT),
-		// in this case we can just overwrite it with our function.
-		var address = addressFactory.getAddress(method.addressString);
-		var symbol = getSymbolAt(address);
-		if (symbol != null && symbol.getSource() != SourceType.DEFAULT) {
-			try {
+		int type = typeTable.ordinal(name);
+		if (type >= 0 || definitionSource == typeTable) {
+			return type;
+		}
+
+		try {
+			return typeTable.add(name, definitionSource);
+		} catch (IOException e) {
+			log.error("definition", "error parsing type definition: " + name, e);
+			return -1;
+		}
+	}
+
+	private ImportedType getDefinition(String name) {
+		if (name == null) {
+			return null;
+		}
+
+		var definition = typeMap.get(name);
+		if (definition != null) {
+			return definition;
+		}
+
+		int type = findType(name);
+		if (type < 0) {
+			return null;
+		}
+
+		definition = new ImportedType(typeTable.load(type));
+		if (evictedTypes.contains(name) && !rebindEvicted(definition)) {
+			log.warn("type", "Failed to find the committed type for " + name + " after reloading it");
+		}
+
+		typeMap.put(name, definition);
+		if (definitionBudget > 0) {
+			residentBytes.addAndGet(definition.estimateSize());
+		}
+		return definition;
+	}
+
+	// Drops the least recently used definitions once the resident ones exceed the budget.
+	// Must only run between types: nothing is half built then, so every definition is either
+	// untouched or committed and can be built from its row in typeTable again.
+	private void trimDefinitions() {
+		if (definitionBudget <= 0 || residentBytes.get() <= definitionBudget) {
+			return;
+		}
+
+		// Trim a bit further than needed, so this doesn't run again for every type
+		var target = definitionBudget / 4 * 3;
+		synchronized (typeMap) {
+			var iterator = typeMap.values().iterator();
+			while (residentBytes.get() > target && iterator.hasNext()) {
+				var definition = iterator.next();
+				if (definition.dataType != null) {
+					evictedTypes.add(definition.name);
+				}
+				residentBytes.addAndGet(-definition.estimateSize());
+				iterator.remove();
+			}
+		}
+	}
+
+	// See ImportPlan.plan, only reads typeTable
+	private List<String> planImport(List<String> roots) throws CancelledException {
+		return ImportPlan.plan(roots, types, progress());
+	}
+
+	private List<String> getLayoutDependencies(String name) {
+		return ImportPlan.getLayoutDependencies(types, findType(name));
+	}
+
+	// Whether parseClass would do anything for this name. Built-in and value types are
+	// resolved through valueTypes instead.
+	private boolean isImportable(String name) {
+		return types.findImportable(name) >= 0;
+	}
+
+	private Progress<CancelledException> progress() {
+		return new MonitorProgress(monitor);
+	}
+
+	private static String formatDuration(long nanos) {
+		var seconds = TimeUnit.NANOSECONDS.toSeconds(nanos);
+		return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+	}
+
+	public boolean isValueType(String name) {
+		return valueTypes.containsKey(name);
+	}
+
+	public DataType getValueType(String objectName) {
+		return valueTypes.get(objectName);
+	}
+
+	private DataType getValueTypeOrType(String name) {
+		ensureParsed(name);
+
+		var dt = lookupValueTypeOrType(name);
+		if (dt == null) {
+			if (name.charAt(0) == '/') {
+				log.warn("type", "Failed to find datatype: " + name);
+			} else if (getDefinition(name) != null) {
+				// Should only happen in case an Exception is thrown in parseClass
+				log.warn("type", "dt is null for " + name + " after parsing");
+			}
+		}
+		return dt;
+	}
+
+	private DataType getPassingType(String name, boolean forField) {
+		ensureParsed(name);
+		return lookupPassingType(name, forField);
+	}
+
+	private void ensureParsed(String name) {
+		if (isImportable(name)) {
+			parseClass(name);
+		}
+	}
+
+	// Read-only counterpart of getValueTypeOrType. Never parses anything, types that have
+	// not been imported yet resolve to null. Safe to call from worker threads once the
+	// type phase is done.
+	private DataType lookupValueTypeOrType(String name) {
+		// Top-level types start with a '/', should only occur for built-in types.
+		if (name.charAt(0) == '/') {
+			return typeManager.getDataType(name);
+		}
+
+		if (valueTypes.containsKey(name)) {
+			return valueTypes.get(name);
+		}
+
+		// Type is not a ValueType
+		ImportedType type = getDefinition(name);
+		return type != null ? type.dataType : null;
+	}
+
+	// Read-only counterpart of getPassingType, see lookupValueTypeOrType
+	private DataType lookupPassingType(String name, boolean forField) {
+		// We need to handle Enums, ValueTypes, and all other types separately.
+		// Enums are the only non-ValueTypes that are usually passed by value and stored in
+		// their value form too.
+		// ValueTypes are stored in value form so we use "built-in" ghidra types to
+		// simplify things.
+		// All other types are stored on the heap and are only accessed via pointers.
+		DataType type = lookupValueTypeOrType(name);
+
+		// Field ValueTypes are always stored in their value form, even if they are larger
+		// than 8 bytes. Return types/parameters on the other hand are always passed as
+		// pointers if they are larger than 8 bytes.
+		if (isValueType(name) && (forField || type.getLength() <= 8)) {
+			return type;
+		}
+
+		var typedef = getDefinition(name);
+		if (typedef == null || typedef.isEnum) {
+			return type;
+		}
+		return typedef.pointerTo;
+	}
+
+	private DataType getPassingType(String name) {
+		return getPassingType(name, false);
+	}
+
+	private Namespace getOrCreateNamespace(String name) {
+		// Packed into a function because I hate java's enforced exception handling or
+		// continued propagating.
+		var namespace = namespaces.get(name);
+		if (namespace != null) {
+			return namespace;
+		}
+
+		try {
+			namespace = symbolTable.getOrCreateNameSpace(currentProgram.getGlobalNamespace(), name, SourceType.IMPORTED);
+			namespaces.put(name, namespace);
+			return namespace;
+		} catch (Exception e) {
+			log.error("namespace", "error creating namespace: " + name, e);
+			return null;
+		}
+	}
+
+	// Builds the plan on several cores. Types referenced from all over the plan (System.Object,
+	// System.String, common containers, ...) are built into the program first. Without them
+	// the layout graph falls apart into independent groups, which are spread over workers that
+	// each build into their own standalone manager. The results are merged into the program
+	// worker by worker in plan order, and the definitions rebound to the merged types. Every
+	// type is built by exactly one worker, the only overlap is copies of the shared types,
+	// which are equivalent to the program's and resolve to them.
+	private void buildTypesInParallel(List<String> plan, int workers) throws CancelledException {
+		// Binding to types the program already has (resuming, incremental imports, the type
+		// archive) and evicting definitions both need the program's manager
+		if (plan.size() < PARALLEL_TYPE_THRESHOLD || definitionBudget > 0 || archivedTypes != null
+				|| reusableTypes != null || (checkpoint != null && checkpoint.getCompletedTypeCount() > 0)) {
+			return;
+		}
+
+		var fanIn = new HashMap<String, Integer>();
+		for (var name : plan) {
+			for (var dependency : getLayoutDependencies(name)) {
+				fanIn.merge(dependency, 1, Integer::sum);
+			}
+		}
+
+		for (var name : plan) {
+			if (fanIn.getOrDefault(name, 0) >= SHARED_TYPE_FAN_IN) {
+				monitor.checkCancelled();
+				parseClass(name);
+			}
+		}
+		commit();
+
+		// Union find over the layout edges between types that still have to be built
+		var ordinals = new HashMap<String, Integer>();
+		for (var name : plan) {
+			if (getDefinition(name).dataType == null) {
+				ordinals.put(name, ordinals.size());
+			}
+		}
+		var sharedTypes = plan.size() - ordinals.size();
+
+		var groupOf = new int[ordinals.size()];
+		Arrays.setAll(groupOf, i -> i);
+		for (var entry : ordinals.entrySet()) {
+			for (var dependency : getLayoutDependencies(entry.getKey())) {
+				var other = ordinals.get(dependency);
+				if (other != null) {
+					groupOf[findGroup(groupOf, entry.getValue())] = findGroup(groupOf, other);
+				}
+			}
+		}
+
+		var groups = new LinkedHashMap<Integer, List<String>>();
+		for (var name : plan) {
+			var ordinal = ordinals.get(name);
+			if (ordinal != null) {
+				groups.computeIfAbsent(findGroup(groupOf, ordinal), (group) -> new ArrayList<>()).add(name);
+			}
+		}
+
+		if (groups.size() < 2) {
+			log.info("Built %d shared types, the rest is one group and is built serially", sharedTypes);
+			return;
+		}
+
+		// Largest groups first, each onto the worker with the least types so far. Ties go by
+		// plan order, so the same plan is always split the same way.
+		var sorted = new ArrayList<>(groups.values());
+		sorted.sort(Comparator.comparingInt((List<String> group) -> group.size()).reversed());
+		workers = Math.min(workers, sorted.size());
+		var assigned = new ArrayList<List<String>>();
+		for (int i = 0; i < workers; i++) {
+			assigned.add(new ArrayList<>());
+		}
+		for (var group : sorted) {
+			assigned.stream().min(Comparator.comparingInt(List::size)).get().addAll(group);
+		}
+		for (var names : assigned) {
+			names.sort(Comparator.comparingInt(ordinals::get));
+		}
+
+		log.info("Building %d types in %d groups on %d workers, %d shared types built first (largest group %d)",
+				ordinals.size(), groups.size(), workers, sharedTypes, sorted.get(0).size());
+
+		var managers = new StandAloneDataTypeManager[workers];
+		try {
+			IntStream.range(0, workers).parallel().forEach(i -> {
+				var manager = new StandAloneDataTypeManager("IL2CPP worker " + i);
+				managers[i] = manager;
+				var transaction = manager.startTransaction("Build IL2CPP types");
+				workerTypeManager.set(manager);
+				try {
+					for (var name : assigned.get(i)) {
+						if (monitor.isCancelled()) {
+							break;
+						}
+						parseClass(name);
+					}
+				} finally {
+					workerTypeManager.remove();
+					manager.endTransaction(transaction, true);
+				}
+			});
+			monitor.checkCancelled();
+
+			// Everything a worker's types refer to comes along, which is its other types and
+			// the copies of shared ones
+			monitor.initialize(workers, "Merging types");
+			for (int i = 0; i < workers; i++) {
+				var types = new ArrayList<DataType>();
+				for (var name : assigned.get(i)) {
+					var definition = getDefinition(name);
+					if (definition.dataType == null) {
+						continue;
+					}
+
+					types.add(definition.dataType);
+					if (definition.isValueType && !definition.isEnum) {
+						var boxed = managers[i].getDataType(CategoryPath.ROOT, "Box<" + name + ">");
+						if (boxed != null) {
+							types.add(boxed);
+						}
+					}
+				}
+
+				var start = System.nanoTime();
+				typeManager.addDataTypes(types, DataTypeConflictHandler.REPLACE_HANDLER, monitor);
+				metrics.record("addDataTypes", start);
+				monitor.incrementProgress(1);
+			}
+		} finally {
+			for (var manager : managers) {
+				if (manager != null) {
+					sharedLayouts.remove(manager);
+					manager.close();
+				}
+			}
+		}
+
+		for (var name : ordinals.keySet()) {
+			var definition = getDefinition(name);
+			definition.dataType = null;
+			definition.pointerTo = null;
+			definition.layout = null;
+			if (!bindExisting(definition)) {
+				log.warn("type", "Failed to find the merged type for " + name);
+				continue;
+			}
+
+			var boxed = typeManager.getDataType(CategoryPath.ROOT, "Box<" + name + ">");
+			if (boxed != null && definition.isValueType && !definition.isEnum) {
+				addDataType(new PointerDataType(boxed), DataTypeConflictHandler.REPLACE_HANDLER);
+			}
+			typeCompleted(name);
+		}
+		commit();
+	}
+
+	private static int findGroup(int[] groupOf, int ordinal) {
+		while (groupOf[ordinal] != ordinal) {
+			// Path halving
+			groupOf[ordinal] = groupOf[groupOf[ordinal]];
+			ordinal = groupOf[ordinal];
+		}
+		return ordinal;
+	}
+
+	// Where a type is in parseClass. It's declared (registered, so others can already point
+	// to it) as soon as it's reached, stays layout pending until the types its layout needs
+	// are there, and is complete once its layout is committed.
+	private enum TypeState {
+		DECLARED, LAYOUT_PENDING, COMPLETE
+	}
+
+	// A declared type on parseClass's work stack
+	private static class ParseStep {
+		final String name;
+		final ImportedType definition;
+		final List<String> dependencies;
+		int next;
+		// Built along with definition.dataType, if any
+		DataType boxedType;
+		Structure sharedType;
+
+		ParseStep(String name, ImportedType definition, List<String> dependencies) {
+			this.name = name;
+			this.definition = definition;
+			this.dependencies = dependencies;
+		}
+	}
+
+	// Builds a type and whatever its layout needs, in the order the old recursive descent
+	// did: declare the type, then its parent, array element and field types, then its
+	// layout. Runs off an explicit stack, so deep reference chains don't need a deep thread
+	// stack. Types that are already declared are skipped, which is what ends cycles through
+	// pointers.
+	private void parseClass(String name) {
+		var stack = new ArrayDeque<ParseStep>();
+		declareClass(name, stack);
+
+		while (!stack.isEmpty()) {
+			var step = stack.peek();
+			if (step.next < step.dependencies.size()) {
+				step.definition.state = TypeState.LAYOUT_PENDING;
+				declareClass(step.dependencies.get(step.next++), stack);
+				continue;
+			}
+
+			stack.pop();
+			if (step.sharedType != null) {
+				buildSharedLayout(step.name, step.definition, step.sharedType);
+			} else if (step.boxedType != null) {
+				buildValueLayout(step.name, step.definition, step.boxedType);
+			} else {
+				buildReferenceLayout(step.name, step.definition);
+			}
+			step.definition.state = TypeState.COMPLETE;
+
+			// Worker types only reach the program when they are merged
+			if (workerTypeManager.get() == null) {
+				typeCompleted(step.name);
+			}
+		}
+	}
+
+	// Registers the type and pushes it so its layout gets built once its dependencies are
+	// done. Nothing is pushed for types that are already there.
+	private void declareClass(String name, ArrayDeque<ParseStep> stack) {
+		ImportedType definition = getDefinition(name);
+		if (definition == null || definition.dataType != null) {
+			// A value type can't contain itself, its layout would miss the pending fields
+			if (definition != null && definition.state != null && definition.state != TypeState.COMPLETE
+					&& definition.isValueType && !definition.isEnum) {
+				log.warn("type", "Value type " + name + " is part of a cycle, its users may miss fields");
+			}
+			return;
+		}
+
+		var added = classesAdded.incrementAndGet();
+		log.debug("(%d/%d) Parsing class %s", added, classesToAdd, name);
+		monitor.incrementProgress(1);
+		if (added > classesToAdd) {
+			// The plan missed a dependency, shouldn't happen but keep the progress sane
+			classesToAdd = added;
+			monitor.setMaximum(classesToAdd);
+		}
+
+		// Already committed by an earlier run of this import that didn't finish
+		if (checkpoint != null && checkpoint.isTypeComplete(name) && bindExisting(definition)) {
+			return;
+		}
+
+		// Unchanged since the previous dump, the program already has the right type
+		if (reusableTypes != null && reusableTypes.contains(name)) {
+			if (bindExisting(definition)) {
+				return;
+			}
+
+			// Wasn't part of the previous import (different filter), treat it as new
+			for (var method : definition.methods) {
+				methodsToImport.add(name + "::" + method.key());
+			}
+		}
+
+		// Already in the program, resolved from the type archive
+		if (archivedTypes != null && archivedTypes.contains(name) && bindExisting(definition)) {
+			return;
+		}
+
+		var step = new ParseStep(name, definition, getLayoutDependencies(name));
+		var sharedName = sharedLayoutOf.get(name);
+		if (sharedName != null) {
+			step.sharedType = declareSharedLayoutType(name, sharedName, definition);
+		} else if (definition.isValueType && !definition.isEnum) {
+			step.boxedType = declareValueType(name, definition);
+		} else {
+			declareReferenceType(name, definition);
+		}
+
+		definition.state = TypeState.DECLARED;
+		stack.push(step);
+	}
+
+	private void declareReferenceType(String name, ImportedType definition) {
+		// Create ghidra type from type definition
+		DataType type = new StructureDataType(name, definition.size);
+
+		// Enum types should be added as an actual enum, not a structure. They DO have a
+		// structure representation however it is only very rarely used so I don't see
+		// the point of adding that.
+		// Also, this 'if' is inside the hasParent 'if' because enums always have
+		// System.Enum as parent
+		if (definition.isEnum) {
+			var enumType = new EnumDataType(name, getValueType(definition.underlyingType()).getLength());
+
+			for (var field : definition.fields) {
+				if (!field.isStatic()) {
+					continue;
+				}
+				
+				try {
+					enumType.add(field.name, field.defaultValue);
+				} catch (IllegalArgumentException e) {
+					log.error("enum", "error adding member " + field.name + " to enum: " + name, e);
+				}
+
+			}
+
+			definition.size = enumType.getLength();
+
+			// Overwrite ghidra type of type definition
+			type = enumType;
+		} else if (!definition.name.endsWith("[]")) {
+			type.setDescription(describeLayout(definition));
+		}
+
+		// Register in archive before parsing anything it depends on. The structure stays
+		// empty until buildReferenceLayout commits its layout, but it can already be pointed to.
+		definition.dataType = addDataType(type, DataTypeConflictHandler.REPLACE_HANDLER);
+		definition.pointerTo = addDataType(new PointerDataType(definition.dataType),
+				DataTypeConflictHandler.REPLACE_HANDLER);
+	}
+
+	private void buildReferenceLayout(String name, ImportedType definition) {
+		// Add all fields to the class
+		if (definition.dataType instanceof Structure) {
+			var layout = new StructureDataType(name, definition.size, getBuildTypeManager());
+			if (definition.name.endsWith("[]")) {
+				addFieldsToArrayType(definition, layout);
+			} else {
+				addFieldsOfClassToType(definition, layout, false);
+			}
+			commitLayout((Structure) definition.dataType, layout);
+		}
+	}
+
+	// An instantiation that only is a typedef of its generic's shared structure, see
+	// planSharedLayouts. Returns the shared structure if this instantiation is the first to
+	// get here and builds its layout.
+	private Structure declareSharedLayoutType(String name, String sharedName, ImportedType definition) {
+		var built = sharedLayouts.computeIfAbsent(getBuildTypeManager(), (manager) -> new HashMap<>());
+		var shared = built.get(sharedName);
+		var buildsShared = shared == null;
+		if (buildsShared) {
+			var type = new StructureDataType(sharedName, definition.size);
+			type.setDescription("Shared layout of " + ImportPlan.getGenericDefinition(name) + " instantiations");
+			shared = addDataType(type, DataTypeConflictHandler.REPLACE_HANDLER);
+			addDataType(new PointerDataType(shared), DataTypeConflictHandler.REPLACE_HANDLER);
+			built.put(sharedName, shared);
+		}
+
+		// Registered before its dependencies, same as a structure of its own
+		definition.dataType = addDataType(new TypedefDataType(name, shared), DataTypeConflictHandler.REPLACE_HANDLER);
+		definition.pointerTo = addDataType(new PointerDataType(definition.dataType),
+				DataTypeConflictHandler.REPLACE_HANDLER);
+		return buildsShared ? (Structure) shared : null;
+	}
+
+	private void buildSharedLayout(String name, ImportedType definition, Structure shared) {
+		// Fields that point to a type argument point to System.Object instead, they only
+		// exist when collapsing
+		var arguments = ImportPlan.getGenericArguments(name);
+		var erased = new HashSet<String>();
+		for (var field : definition.fields) {
+			if (!field.isStatic() && ImportPlan.mentionsAny(field.type(), arguments)) {
+				erased.add(field.name);
+			}
+		}
+		DataType object = null;
+		if (!erased.isEmpty()) {
+			object = getPassingType("System.Object", true);
+			if (object == null) {
+				object = getValueTypeOrType("/void *");
+			}
+		}
+
+		var layout = new StructureDataType(shared.getName(), definition.size, getBuildTypeManager());
+		for (var field : getLayout(definition)) {
+			try {
+				var start = System.nanoTime();
+				layout.replaceAtOffset(field.offsetFromBase, erased.contains(field.name) ? object : field.dataType,
+						field.length, field.name, field.comment);
+				metrics.record("replaceAtOffset", start);
+			} catch (Exception e) {
+				log.error("field", "error adding field " + field.name + " to type: " + shared.getName(), e);
+			}
+		}
+		commitLayout(shared, layout);
+	}
+
+	// Groups the planned generic instantiations by layout, with genericLayouts=share or
+	// collapse (off by default, every instantiation then gets its own structure as before).
+	// Instantiations of the same generic with the same parent, size and fields share one
+	// structure and are typedefs of it, that is identical layouts are only built and stored
+	// once. With genericLayouts=collapse,
+	// reference instantiations whose fields differ only in pointers to their type arguments
+	// share one as well, like IL2CPP's shared __Canon code does. Those fields lose their
+	// element type then. Shapes with a single instantiation are built as usual.
+	private void planSharedLayouts(List<String> plan) {
+		var mode = settings.getProperty("genericLayouts", "off");
+		sharedLayoutOf = Map.of();
+		if (mode.equals("off")) {
+			return;
+		}
+		collapseGenerics = mode.equals("collapse");
+
+		var shapes = new LinkedHashMap<String, List<String>>();
+		for (var name : plan) {
+			var key = ImportPlan.getSharedLayoutKey(types, findType(name), collapseGenerics);
+			if (key != null) {
+				shapes.computeIfAbsent(key, (shape) -> new ArrayList<>()).add(name);
+			}
+		}
+
+		// The most common shape of a generic gets the plain name, other shapes are numbered.
+		// Ties go by plan order, so the names only depend on the plan.
+		var ordered = new ArrayList<>(shapes.values());
+		ordered.removeIf((names) -> names.size() < 2);
+		ordered.sort(Comparator.comparingInt((List<String> names) -> names.size()).reversed());
+
+		var shared = new HashMap<String, String>();
+		var taken = new HashMap<String, Integer>();
+		for (var names : ordered) {
+			var first = names.get(0);
+			var base = String.format("%s<%s>", ImportPlan.getGenericDefinition(first),
+					String.join(",", Collections.nCopies(ImportPlan.getGenericArguments(first).size(), "__Canon")));
+
+			String sharedName;
+			do {
+				var count = taken.merge(base, 1, Integer::sum);
+				sharedName = count == 1 ? base : base + "_" + count;
+			} while (findType(sharedName) >= 0);
+
+			for (var name : names) {
+				shared.put(name, sharedName);
+			}
+		}
+		sharedLayoutOf = shared;
+
+		log.info("%d generic instantiations share %d layouts", shared.size(), ordered.size());
+		metrics.fact("sharedLayouts", ordered.size());
+		metrics.fact("sharedLayoutInstantiations", shared.size());
+	}
+
+	// Registers the value and boxed structures, returns the boxed one. Value types with a
+	// broken size are registered as reference types, null is returned for those.
+	private DataType declareValueType(String name, ImportedType definition) {
+		var valueTypeSize = definition.size - getDefinition("System.Object").size;
+		if (valueTypeSize <= 0) {
+			log.warn("type", "Value type size is less than or equal to 0: " + name);
+			
+			// We still need to register the type so just parse it as a reference type
+			declareReferenceType(name, definition);
+			return null;
+		}
+
+		// For value types we create both a structure for the value type itself and a
+		// structure for its boxed form (i.e. when converted to a System.Object)
+		DataType boxedType = new StructureDataType("Box<" + name + ">", definition.size);
+		DataType valueType = new StructureDataType(name, valueTypeSize);
+		var description = describeLayout(definition);
+		boxedType.setDescription(description);
+		valueType.setDescription(description);
+
+		// Register in archive before parsing anything it depends on
+		definition.dataType = addDataType(valueType, DataTypeConflictHandler.REPLACE_HANDLER);
+		definition.pointerTo = addDataType(new PointerDataType(definition.dataType),
+				DataTypeConflictHandler.REPLACE_HANDLER);
+			
+		var boxedGhidraType = addDataType(boxedType, DataTypeConflictHandler.REPLACE_HANDLER);
+		addDataType(new PointerDataType(boxedGhidraType), DataTypeConflictHandler.REPLACE_HANDLER);
+		return boxedGhidraType;
+	}
+
+	private void buildValueLayout(String name, ImportedType definition, DataType boxedGhidraType) {
+		var valueTypeSize = definition.size - getDefinition("System.Object").size;
+
+		// Add all fields to the class
+		var boxedLayout = new StructureDataType(boxedGhidraType.getName(), definition.size, getBuildTypeManager());
+		addFieldsOfClassToType(definition, boxedLayout, false);
+		commitLayout((Structure) boxedGhidraType, boxedLayout);
+
+		var valueLayout = new StructureDataType(name, valueTypeSize, getBuildTypeManager());
+		addFieldsOfClassToType(definition, valueLayout, true);
+		commitLayout((Structure) definition.dataType, valueLayout);
+	}
+
+	private void handleStaticGetter(ImportedType parent, REMethod method) {
+		try {
+			var fieldName = method.name.substring(4);
+			var fieldType = getPassingType(method.returnType());
+
+			disassemble(toAddr(method.address));
+			var instruction = getInstructionAt(toAddr(method.address));
+			if (instruction == null) {
+				return;
+			}
+
+			if (!instruction.getMnemonicString().equals("MOV")) {
+				return;
+			}
+
+			if (!instruction.getNext().getMnemonicString().equals("RET")) {
+				return;
+			}
+
+			var addr = (Address) instruction.getOpObjects(1)[0];
+			if (addr == null) {
+				return;
+			}
+
+			createLabel(addr, fieldName, getOrCreateNamespace(parent.name), false, SourceType.IMPORTED);
+			createData(addr, fieldType);
+		} catch (Exception e) {
+			// printf("Failed to parse static getter:  %s", e.getMessage());
+			// println();
+			log.error("static getter", "Failed to parse static getter: " + method.name, e);
+		}
+	}
+
+	// Functions are created after all types exist, in address order and in batches with one
+	// transaction each. Sorting keeps consecutive inserts close together in the program's
+	// tables, committing per batch keeps the open transaction small.
+	private void importMethods(List<String> plan) throws CancelledException {
+		var methods = new ArrayList<PendingMethod>();
+		for (var name : plan) {
+			var definition = getDefinition(name);
+			if (definition == null || definition.dataType == null) {
+				continue;
+			}
+
+			for (int i = 0; i < definition.methods.size(); i++) {
+				var method = definition.methods.get(i);
+				if (method.address == 0) {
+					continue;
+				}
+
+				if (methodsToImport == null || methodsToImport.contains(definition.name + "::" + method.key())) {
+					methods.add(new PendingMethod(definition.name, i, method.address));
+				}
+			}
+			trimDefinitions();
+		}
+		methods.sort(Comparator.comparingLong((pending) -> pending.address));
+
+		monitor.initialize(methods.size(), "Importing methods");
+		for (int start = 0; start < methods.size(); start += METHOD_BATCH_SIZE) {
+			monitor.checkCancelled();
+
+			var batch = methods.subList(start, Math.min(start + METHOD_BATCH_SIZE, methods.size()));
+			var batchIndex = start / METHOD_BATCH_SIZE;
+			if (checkpoint != null && batchIndex < checkpoint.getCompletedMethodBatches()) {
+				// Committed by an earlier run, the method order is the same every time
+				monitor.incrementProgress(batch.size());
+				continue;
+			}
+			for (var pending : batch) {
+				pending.parent = getDefinition(pending.parentName);
+				if (pending.parent != null) {
+					pending.method = pending.parent.methods.get(pending.index);
+					pending.function = createMethodFunction(pending.method, pending.parent);
+				}
+			}
+
+			// Every type exists by now, so signatures only need lookups and can be resolved on
+			// all cores. Applying them stays on this thread, the program only has one writer.
+			var signatures = batch.parallelStream()
+					.map((pending) -> pending.function == null ? null
+							: resolveMethodSignature(pending.method, pending.parent))
+					.toArray(MethodSignature[]::new);
+
+			for (int i = 0; i < batch.size(); i++) {
+				var pending = batch.get(i);
+				if (pending.function != null) {
+					applyMethodSignature(pending.function, signatures[i],
+							pending.parent.name + "." + pending.method.name);
+				}
+				pending.function = null;
+				pending.method = null;
+				pending.parent = null;
+			}
+
+			commit();
+			if (checkpoint != null && System.nanoTime() - lastCheckpointSave >= CHECKPOINT_INTERVAL) {
+				saveCheckpoint(batchIndex + 1);
+			}
+
+			monitor.incrementProgress(batch.size());
+			log.info("Imported methods (%d/%d)", start + batch.size(), methods.size());
+		}
+
+		log.info("%d methods shared %d distinct signatures", methods.size(), signatures.size());
+		metrics.fact("methods", methods.size());
+		metrics.fact("signatures", signatures.size());
+		signatures.clear();
+	}
+
+	// Fully resolved signature of a method, computed without touching the program so it can
+	// be built on any thread and applied later by the script thread.
+	private static class MethodSignature {
+		public final DataType returnType;
+		public final String[] parameterNames;
+		public final DataType[] parameterTypes;
+
+		// Built once by the script thread the first time the signature is applied and shared
+		// by every method with the same shape. updateFunction copies them, never keeps them.
+		public ReturnParameterImpl returnParameter;
+		public List<ParameterImpl> parameters;
+
+		MethodSignature(DataType returnType, String[] parameterNames, DataType[] parameterTypes) {
+			this.returnType = returnType;
+			this.parameterNames = parameterNames;
+			this.parameterTypes = parameterTypes;
+		}
+
+		public void build(Program program) throws InvalidInputException {
+			if (parameters != null) {
+				return;
+			}
+
+			var params = new ArrayList<ParameterImpl>(parameterNames.length);
+			for (int i = 0; i < parameterNames.length; i++) {
+				params.add(new ParameterImpl(parameterNames[i], parameterTypes[i], program));
+			}
+
+			returnParameter = new ReturnParameterImpl(returnType, program);
+			parameters = Collections.unmodifiableList(params);
+		}
+	}
+
+	// Return type id, 'this' type id (or -1) and then a name id and type id per parameter
+	private record SignatureKey(int[] shape) {
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof SignatureKey key && Arrays.equals(shape, key.shape);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(shape);
+		}
+	}
+
+	// Only the method's position is kept until its batch comes up, so memory-bounded imports
+	// can still evict its definition in the meantime.
+	private static class PendingMethod {
+		public final String parentName;
+		public final int index;
+		public final long address;
+
+		public REMethod method;
+		public ImportedType parent;
+		public Function function;
+
+		PendingMethod(String parentName, int index, long address) {
+			this.parentName = parentName;
+			this.index = index;
+			this.address = address;
+		}
+
+		// Already resolved, for methods that are only looked at once
+		PendingMethod(REMethod method, ImportedType parent) {
+			this(parent.name, -1, method.address);
+			this.method = method;
+			this.parent = parent;
+		}
+	}
+
+	// Creates the function for a method, or only labels it if something else already claimed
+	// the address. Returns null if there is nothing to apply a signature to.
+	private Function createMethodFunction(REMethod method, ImportedType parent) {
+		if (method.isStatic() && method.name.startsWith("get_")) {
+			var start = System.nanoTime();
+			handleStaticGetter(parent, method);
+			metrics.record("staticGetter", start);
+		}
+
+		// If there are already symbols here, there are 2 possibilities:
+		// 1. This is a generic function and we don't actually want to have a typed function, 
+		// remove the function if it's there and add labels and a generic function to mark it's been acknowledged
+		// 2. There is a symbol that was placed there automatically by ghidra (SourceType.DEFAULT),
+		// in this case we can just overwrite it with our function.
+		var address = toAddr(method.address);
+		var symbol = getSymbolAt(address);
+		if (symbol != null && symbol.getSource() != SourceType.DEFAULT) {
+			try {
 				Function existing = functionManager.getFunctionAt(address);
 				if (existing != null && existing.getParentNamespace() != currentProgram.getGlobalNamespace()) {
 					createLabel(address, existing.getName(), existing.getParentNamespace(), false,
@@ -537,26 +1929,50 @@ public class IL2CPPDumpImporter extends GhidraScript {
 						SourceType.USER_DEFINED);
 			} catch (Exception e) {
 				// println("error creating label for generic function: " + e.getMessage());
-				logException("error creating label for generic function: " + method.name, e);
+				log.error("label", "error creating label for generic function: " + method.name, e);
 			}
-			return;
+			return null;
 		}
 
 		Function function;
 
 		// If the function does not yet exist then we try to create it and then rename it.
 		try {
+			var start = System.nanoTime();
 			function = createFunction(address, method.name);
+			metrics.record("createFunction", start);
 			function.setParentNamespace(getOrCreateNamespace(parent.name));
 			// That could be useful, but it's not worth the huge slowdown it causes
 			// function.setComment(String.format("flags: %s\nimpl flags: %s", method.flags,
 			// method.implFlags));
 		} catch (Exception e) {
 			// println("error creating function: " + e.getMessage());
-			logException("error creating function: " + method.name, e);
-			return;
+			log.error("function", "error creating function: " + method.name, e);
+			return null;
+		}
+
+		return function;
+	}
+
+	// Methods with the same shape (return type, 'this' type and parameters) share a single
+	// MethodSignature, and with it the parameter objects built for it. Read-only, see
+	// lookupValueTypeOrType.
+	private MethodSignature resolveMethodSignature(REMethod method, ImportedType parent) {
+		var hasThis = method.hasThis();
+		var shape = new int[2 + method.parameters.size() * 2];
+		shape[0] = method.returnTypeId();
+		shape[1] = hasThis ? strings.id(parent.name) : -1;
+		for (int i = 0; i < method.parameters.size(); i++) {
+			var param = method.parameters.get(i);
+			shape[2 + i * 2] = param.nameId();
+			shape[3 + i * 2] = param.typeId();
 		}
 
+		var key = new SignatureKey(shape);
+		return signatures.computeIfAbsent(key, (k) -> buildMethodSignature(method, parent, hasThis));
+	}
+
+	private MethodSignature buildMethodSignature(REMethod method, ImportedType parent, boolean hasThis) {
 		// Add all parameters to the function. Code is not complete because there are a
 		// million exceptions to consider where certain parameters do not exist or
 		// others exist even tho the dump does not specify them.
@@ -581,38 +1997,46 @@ public class IL2CPPDumpImporter extends GhidraScript {
 		// I believe there are also some types that aren't explicitly ValueTypes but
 		// still adhere to this behavior.
 		// - There might be some more intricacies that I have missed...
-		var params = method.parameters;
-		var funcParams = new ArrayList<ParameterImpl>();
+		int count = method.parameters.size() + (hasThis ? 2 : 1);
+		var names = new String[count];
+		var types = new DataType[count];
 
-		try {
-			// Get the return type
-			var retType = getPassingType(method.returnType);
+		// Methods always take the thread context as their first parameter
+		int i = 0;
+		names[i] = "vmctx";
+		types[i++] = lookupValueTypeOrType("/void *");
 
-			var ret = new ReturnParameterImpl(retType, currentProgram);
+		if (hasThis) {
+			names[i] = "this";
+			types[i++] = parent.dataType;
+		}
 
-			// Methods always take the thread context as their first parameter
-			funcParams.add(new ParameterImpl("vmctx", getValueTypeOrType("/void *"), currentProgram));
+		for (var param : method.parameters) {
+			names[i] = param.name();
+			types[i++] = lookupValueTypeOrType(param.type());
+		}
 
-			if (method.implFlags.contains("HasThis")) {
-				funcParams
-						.add(new ParameterImpl("this", parent.dataType, currentProgram));
-			}
+		// Get the return type
+		return new MethodSignature(lookupPassingType(method.returnType(), false), names, types);
+	}
 
-			for (var param : params) {
-				funcParams.add(new ParameterImpl(param.name, getValueTypeOrType(param.type), currentProgram));
-			}
+	private void applyMethodSignature(Function function, MethodSignature signature, String name) {
+		try {
+			signature.build(currentProgram);
 
 			// Using this function because Function.addParameter is deprecated. This also makes
 			// things easier as ghidra tries to determine Register and stack offset by itself.
-			function.updateFunction("__fastcall", ret, funcParams,
+			var start = System.nanoTime();
+			function.updateFunction("__fastcall", signature.returnParameter, signature.parameters,
 					Function.FunctionUpdateType.DYNAMIC_STORAGE_ALL_PARAMS, true, SourceType.IMPORTED);
+			metrics.record("updateFunction", start);
 		} catch (Exception e) {
 			// println("error parsing function signature:" + e.getMessage());
-			logException("error parsing function signature for " + parent.name + "." + method.name, e);
+			log.error("signature", "error parsing function signature for " + name, e);
 		}
 	}
 
-	private void addFieldsToArrayType(RETypeDefinition definition, Structure type) {
+	private void addFieldsToArrayType(ImportedType definition, Structure type) {
 		type.deleteAll();
 		type.growStructure(0x20);
 
@@ -633,243 +2057,634 @@ public class IL2CPPDumpImporter extends GhidraScript {
 				containedDataType.getLength(), "Elements", "");
 	}
 
-	private void addFieldsOfClassToType(RETypeDefinition definition, Structure type, boolean isValueType) {
-		if (definition == null) {
-			return;
+	// Fields are laid out in a detached structure first and then written to the registered
+	// (still empty) type in one go, instead of one database update per field.
+	private void commitLayout(Structure target, StructureDataType layout) {
+		try {
+			var start = System.nanoTime();
+			target.replaceWith(layout);
+			metrics.record("replaceWith", start);
+		} catch (Exception e) {
+			log.error("layout", "error committing layout of type: " + target.getName(), e);
 		}
+	}
 
-		if (definition.size == 0) {
-			return;
+	// "Parent:0x.. -> Child:0x.. -> ", following the same parent chain as getLayout
+	private String describeLayout(ImportedType definition) {
+		if (definition == null || definition.size == 0) {
+			return "";
 		}
-		type.setDescription(String.format("%s:0x%x -> ", definition.name, definition.size) + type.getDescription());
-		if (definition.hasFields()) {
-			try {
-				addFieldsToType(definition.fields, type, isValueType);
-				if (definition.hasParent()) {
-					addFieldsOfClassToType(typeMap.get(definition.parent), type, isValueType);
-				}
-			} catch (Exception e) {
-				logException("error adding fields to type: " + definition.name, e);
-			}
 
+		if (definition.layoutDescription == null) {
+			var description = String.format("%s:0x%x -> ", definition.name, definition.size);
+			if (definition.hasFields() && definition.hasParent()) {
+				description = describeLayout(getDefinition(definition.parent())) + description;
+			}
+			definition.layoutDescription = description;
 		}
+		return definition.layoutDescription;
 	}
 
-	private void addFieldsToType(ArrayList<REField> fields, Structure type, boolean isValueType) throws Exception {
-		for (var field : fields) {
-			if (!field.isStatic()) {
-				String typeName = field.type;
+	// All instance fields of a type including inherited ones, resolved to ghidra types.
+	// TypeLayouts flattens the hierarchy into field rows, this only resolves them, once per
+	// type (value types are laid out twice).
+	private LayoutField[] getLayout(ImportedType definition) {
+		if (definition == null) {
+			return NO_FIELDS;
+		}
+
+		if (definition.layout != null) {
+			return definition.layout;
+		}
 
-				RETypeDefinition fieldType = typeMap.getOrDefault(typeName, null);
-				if (fieldType == null) {
-					continue;
+		var layout = new ArrayList<LayoutField>();
+		try {
+			for (var field : layouts.get(findType(definition.name))) {
+				var fieldDataType = getPassingType(typeTable.fieldType(field), true);
+				if (fieldDataType != null) {
+					layout.add(new LayoutField(typeTable, field, fieldDataType));
 				}
+			}
+		} catch (Exception e) {
+			log.error("field", "error adding fields to type: " + definition.name, e);
+		}
 
-				var fieldDataType = getPassingType(typeName, true);
+		definition.layout = layout.toArray(NO_FIELDS);
+		return definition.layout;
+	}
+
+	private void addFieldsOfClassToType(ImportedType definition, Structure type, boolean isValueType) {
+		for (var field : getLayout(definition)) {
+			try {
+				var start = System.nanoTime();
 				type.replaceAtOffset(
 					isValueType ? field.offsetFromFieldPtr : field.offsetFromBase,
-					fieldDataType, 
-					fieldDataType.getLength(), 
+					field.dataType,
+					field.length,
 					field.name,
-					field.flags
+					field.comment
 				);
+				metrics.record("replaceAtOffset", start);
+			} catch (Exception e) {
+				log.error("field", "error adding field " + field.name + " to type: " + definition.name, e);
 			}
 		}
 	}
 
-	private void logError(String message) {
-		if (logWriter == null) {
-			println("Encountered Error: ");
-			println(message);
-			return;
+	// Where an import's time and memory go. Phases run one after another on the script
+	// thread, each records wall and process CPU time, bytes allocated by all live threads
+	// and the heap's high-water mark. Hot program operations are timed individually into
+	// log2 latency histograms. Everything ends up in a JSON report next to the dump.
+	private static class ImportMetrics {
+		private static final int HISTOGRAM_BUCKETS = 24;
+
+		private record PhaseStats(String name, long wallNanos, long cpuNanos, long allocatedBytes, long heapPeakBytes) {
 		}
 
-		try {
-			logWriter.write("Encountered Error: ");
-			logWriter.newLine();
-			logWriter.write(message);
-			logWriter.newLine();
-		} catch (Exception e) {
-			println("error writing to log file: " + e.getMessage());
+		private static class OperationStats {
+			final LongAdder count = new LongAdder();
+			final LongAdder totalNanos = new LongAdder();
+			final AtomicLong maxNanos = new AtomicLong();
+			// Bucket i counts calls that took less than 2^i microseconds (the last one is open)
+			final AtomicLongArray buckets = new AtomicLongArray(HISTOGRAM_BUCKETS);
 		}
-	}
 
-	private void logException(String message, Exception e) {
-		if (logWriter == null) {
-			println("Encountered Exception: ");
-			println(message);
-			println(e.getMessage());
-			println(e.getStackTrace()[0].toString());
-			return;
+		private final long startedAt = System.currentTimeMillis();
+		private final long startNanos = System.nanoTime();
+		private final LinkedHashMap<String, Object> facts = new LinkedHashMap<>();
+		private final ArrayList<PhaseStats> phases = new ArrayList<>();
+		private final ConcurrentHashMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+		private final com.sun.management.OperatingSystemMXBean os;
+		private final com.sun.management.ThreadMXBean threads;
+
+		private String phase;
+		private long phaseWall;
+		private long phaseCpu;
+		private long phaseAllocated;
+
+		ImportMetrics() {
+			// Only HotSpot based JVMs have the extended beans, without them CPU time and
+			// allocations are reported as -1
+			os = ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean bean
+					? bean
+					: null;
+			threads = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+					&& bean.isThreadAllocatedMemorySupported() ? bean : null;
 		}
 
-		try {
-			logWriter.write("Encountered Exception: ");
-			logWriter.newLine();
-			logWriter.write(message);
-			logWriter.newLine();
-			logWriter.write(e.getMessage());
-			logWriter.newLine();
-			logWriter.write(e.getStackTrace()[0].toString());
-			logWriter.newLine();
-		} catch (Exception ex) {
-			println("error writing to log file: " + ex.getMessage());
-		}
-	}
-
-	private static class REMethod {
-		public static class Parameter {
-			public String name;
-			public String type;
-
-			public Parameter(String n, String t) {
-				name = n;
-				type = t;
-			}
-		}
-
-		public String name;
-		public String flags;
-		public long address;
-		public String addressString;
-		public int id;
-		public int invokeId;
-		public String implFlags;
-		public ArrayList<Parameter> parameters;
-		public String returnType;
-
-		REMethod(String name, JSONObject method) {
-			flags = method.has("flags") ? method.getString("flags") : "";
-			addressString = method.getString("function");
-			address = Long.parseLong(addressString, 16);
-			id = method.getInt("id");
-			invokeId = method.getInt("invoke_id");
-			if (method.has("impl_flags")) {
-				implFlags = method.getString("impl_flags");
-			} else {
-				implFlags = "";
-			}
-
-			// Since method names are stored with [Name][ID] we remove the ID to avoid
-			// confusing names in ghidra.
-			// Also constructor names always start with a '.' so we remove that also to
-			// avoid 'Namespace::.Name'
-			this.name = (name.startsWith(".") ? name.substring(1) : name).substring(0,
-					name.indexOf(Integer.toString(id)));
-
-			parameters = new ArrayList<>();
-			if (method.has("params")) {
-				var params = method.getJSONArray("params");
-				for (int i = 0; i < params.length(); i++) {
-					var param = params.getJSONObject(i);
-					parameters.add(new Parameter(param.getString("name"), param.getString("type")));
+		// Ends the current phase (if any) and starts the next one
+		public void phase(String name) {
+			endPhase();
+
+			for (var pool : ManagementFactory.getMemoryPoolMXBeans()) {
+				if (pool.getType() == MemoryType.HEAP) {
+					pool.resetPeakUsage();
+				}
+			}
+			phase = name;
+			phaseWall = System.nanoTime();
+			phaseCpu = cpuTime();
+			phaseAllocated = allocatedBytes();
+		}
+
+		public void endPhase() {
+			if (phase == null) {
+				return;
+			}
+
+			long heapPeak = 0;
+			for (var pool : ManagementFactory.getMemoryPoolMXBeans()) {
+				if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+					heapPeak += pool.getPeakUsage().getUsed();
 				}
 			}
 
-			returnType = method.getJSONObject("returns").getString("type");
+			var cpu = cpuTime();
+			var allocated = allocatedBytes();
+			phases.add(new PhaseStats(phase, System.nanoTime() - phaseWall, cpu < 0 ? -1 : cpu - phaseCpu,
+					allocated < 0 ? -1 : allocated - phaseAllocated, heapPeak));
+			phase = null;
 		}
-	}
 
-	private static class REField {
-		public String flags;
-		public int id;
-		public int offsetFromBase;
-		public int offsetFromFieldPtr;
-		public String type;
-		public String name;
-		public int defaultValue;
+		public void fact(String name, Object value) {
+			facts.put(name, value);
+		}
+
+		// Use as 'var start = System.nanoTime(); ...; metrics.record("op", start);'
+		public void record(String operation, long start) {
+			var nanos = System.nanoTime() - start;
+			var stats = operations.computeIfAbsent(operation, (k) -> new OperationStats());
+			stats.count.increment();
+			stats.totalNanos.add(nanos);
+			stats.maxNanos.accumulateAndGet(nanos, Math::max);
+
+			var bucket = 64 - Long.numberOfLeadingZeros(nanos / 1000);
+			stats.buckets.incrementAndGet(Math.min(bucket, HISTOGRAM_BUCKETS - 1));
+		}
 
-		public REField(String name, JSONObject field) {
-			flags = field.has("flags") ? field.getString("flags") : "";
-			id = field.getInt("id");
-			offsetFromBase = Integer.parseInt(field.getString("offset_from_base").substring(2), 16);
+		private long cpuTime() {
+			return os != null ? os.getProcessCpuTime() : -1;
+		}
 
-			// Only ever used for ValueTypes, can ignore for the most part. Kept it here for
-			// completeness' sake.
-			offsetFromFieldPtr = Integer.parseInt(field.getString("offset_from_fieldptr").substring(2), 16);
-			type = field.getString("type");
+		// Threads that died in the meantime take their count with them, the common pool's
+		// workers normally stay alive for the whole import though.
+		private long allocatedBytes() {
+			if (threads == null) {
+				return -1;
+			}
 
-			// Only really used for enum members
-			defaultValue = field.optInt("default", 0);
+			long total = 0;
+			for (var bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+				if (bytes > 0) {
+					total += bytes;
+				}
+			}
+			return total;
+		}
 
-			this.name = name;
-			if (this.name.matches("<(.+)>k__BackingField")) {
-				this.name = "__" + this.name.substring(1, this.name.length() - 16);
-				this.flags += " | BackingField";
+		public void writeReport(File file) throws IOException {
+			endPhase();
+
+			var json = new StringBuilder("{\n");
+			json.append("  \"startedAt\": ").append(startedAt).append(",\n");
+			json.append("  \"wallMillis\": ").append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+					.append(",\n");
+			json.append("  \"maxHeapBytes\": ").append(Runtime.getRuntime().maxMemory()).append(",\n");
+			json.append("  \"processors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+			for (var fact : facts.entrySet()) {
+				json.append("  ").append(quote(fact.getKey())).append(": ").append(jsonValue(fact.getValue()))
+						.append(",\n");
+			}
+
+			json.append("  \"phases\": [");
+			for (int i = 0; i < phases.size(); i++) {
+				var stats = phases.get(i);
+				json.append(i == 0 ? "\n" : ",\n").append(String.format("    {\"name\": %s, \"wallMillis\": %d, "
+						+ "\"cpuMillis\": %d, \"allocatedBytes\": %d, \"heapPeakBytes\": %d}",
+						quote(stats.name), TimeUnit.NANOSECONDS.toMillis(stats.wallNanos),
+						stats.cpuNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(stats.cpuNanos), stats.allocatedBytes,
+						stats.heapPeakBytes));
+			}
+			json.append("\n  ],\n");
+
+			json.append("  \"operations\": {");
+			var names = new ArrayList<>(operations.keySet());
+			Collections.sort(names);
+			for (int i = 0; i < names.size(); i++) {
+				var stats = operations.get(names.get(i));
+				json.append(i == 0 ? "\n" : ",\n").append(String.format(
+						"    %s: {\"count\": %d, \"totalMillis\": %d, \"maxMicros\": %d, \"histogramMicros\": {",
+						quote(names.get(i)), stats.count.sum(), TimeUnit.NANOSECONDS.toMillis(stats.totalNanos.sum()),
+						TimeUnit.NANOSECONDS.toMicros(stats.maxNanos.get())));
+
+				// Keyed by each bucket's exclusive upper bound, empty buckets are left out
+				var first = true;
+				for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; bucket++) {
+					var count = stats.buckets.get(bucket);
+					if (count == 0) {
+						continue;
+					}
+					var bound = bucket == HISTOGRAM_BUCKETS - 1 ? "inf" : Long.toString(1L << bucket);
+					json.append(first ? "" : ", ").append(quote("<" + bound)).append(": ").append(count);
+					first = false;
+				}
+				json.append("}}");
+			}
+			json.append("\n  }\n}\n");
+
+			Files.writeString(file.toPath(), json, StandardCharsets.UTF_8);
+		}
+
+		private static String jsonValue(Object value) {
+			if (value == null) {
+				return "null";
 			}
+			if (value instanceof Number || value instanceof Boolean) {
+				return value.toString();
+			}
+			return quote(value.toString());
 		}
 
-		public boolean isStatic() {
-			return flags.contains("Static");
+		private static String quote(String value) {
+			var quoted = new StringBuilder("\"");
+			for (int i = 0; i < value.length(); i++) {
+				var c = value.charAt(i);
+				switch (c) {
+					case '"' -> quoted.append("\\\"");
+					case '\\' -> quoted.append("\\\\");
+					case '\n' -> quoted.append("\\n");
+					case '\r' -> quoted.append("\\r");
+					case '\t' -> quoted.append("\\t");
+					default -> {
+						if (c < 0x20) {
+							quoted.append(String.format("\\u%04x", (int) c));
+						} else {
+							quoted.append(c);
+						}
+					}
+				}
+			}
+			return quoted.append('"').toString();
 		}
 	}
 
-	private static class RETypeDefinition {
-		public String name;
-		public int size;
-		public String parent;
-		public ArrayList<REField> fields;
-		public ArrayList<REMethod> methods;
-		public boolean isValueType;
-		public boolean isEnum;
-		public String underlyingType;
+	// Leveled logging that stays off the import thread. Messages are queued and written by a
+	// background thread: everything at or above the threshold goes to the log file, the
+	// console only gets a rate limited share of it since every console line is a UI update.
+	// Warnings and errors are counted per category for the summary at the end of the run.
+	private static class ImportLog implements Closeable {
+		enum Level {
+			DEBUG, INFO, WARN, ERROR
+		}
 
-		public DataType dataType;
-		public DataType pointerTo;
+		private record Entry(Level level, String category, String message, Throwable error) {
+		}
 
-		public RETypeDefinition(String className, JSONObject object) {
-			name = className;
-			if (object.has("size"))
-				size = Integer.parseInt(object.getString("size"), 16);
-			parent = object.has("parent") ? object.getString("parent") : "";
-			fields = new ArrayList<>();
-			methods = new ArrayList<>();
-
-			if (parent.equals("System.ValueType")) {
-				isValueType = true;
-				isEnum = false;
-			} else if (parent.equals("System.Enum")) {
-				isValueType = false;
-				isEnum = true;
-			} else {
-				isValueType = false;
-				isEnum = false;
+		private static final int QUEUE_CAPACITY = 16384;
+		private static final int CONSOLE_LINES_PER_SECOND = 20;
+		private static final Entry END = new Entry(Level.ERROR, null, null, null);
+
+		private final Level threshold;
+		private final BufferedWriter file;
+		private final Consumer<String> console;
+		private final ArrayBlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		private final ConcurrentHashMap<String, AtomicInteger> problems = new ConcurrentHashMap<>();
+		private final AtomicInteger dropped = new AtomicInteger();
+		private final AtomicInteger failed = new AtomicInteger();
+		private final Thread writer;
+
+		// Only used by the writer thread
+		private long consoleSecond;
+		private int consoleLines;
+		private int suppressedLines;
+
+		ImportLog(Level threshold, BufferedWriter file, Consumer<String> console) {
+			this.threshold = threshold;
+			this.file = file;
+			this.console = console;
+
+			writer = new Thread(this::drain, "IL2CPP import log");
+			writer.setDaemon(true);
+			writer.start();
+		}
+
+		public boolean isEnabled(Level level) {
+			return level.compareTo(threshold) >= 0;
+		}
+
+		// Only formats the message if it is going to be written
+		public void debug(String format, Object... args) {
+			if (isEnabled(Level.DEBUG)) {
+				log(Level.DEBUG, null, String.format(format, args), null);
+			}
+		}
+
+		public void info(String format, Object... args) {
+			if (isEnabled(Level.INFO)) {
+				log(Level.INFO, null, String.format(format, args), null);
 			}
+		}
+
+		public void warn(String category, String message) {
+			count(category);
+			log(Level.WARN, category, message, null);
+		}
+
+		public void error(String category, String message, Throwable error) {
+			count(category);
+			log(Level.ERROR, category, message, error);
+		}
+
+		private void count(String category) {
+			problems.computeIfAbsent(category, (k) -> new AtomicInteger()).incrementAndGet();
+		}
+
+		private void log(Level level, String category, String message, Throwable error) {
+			if (!isEnabled(level)) {
+				return;
+			}
+
+			var entry = new Entry(level, category, message, error);
+			if (level.compareTo(Level.WARN) < 0) {
+				// Progress messages are not worth waiting for
+				if (!queue.offer(entry)) {
+					dropped.incrementAndGet();
+				}
+				return;
+			}
+
+			try {
+				queue.put(entry);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void drain() {
+			try {
+				for (var entry = queue.take(); entry != END; entry = queue.take()) {
+					// The writer must outlive a broken console, or callers block on a full queue
+					try {
+						write(entry);
+					} catch (RuntimeException e) {
+						failed.incrementAndGet();
+					}
+				}
+			} catch (InterruptedException e) {
+				// Only happens if the script is torn down, nothing left to write to
+			}
+		}
 
-			if (isEnum) {
-				// Get the enums underlying type
-				if (object.has("reflection_properties")) {
-					underlyingType = object.getJSONObject("reflection_properties").getJSONObject("value__")
-							.getString("type");
-				} else {
-					underlyingType = object.getJSONObject("fields").getJSONObject("value__").getString("type");
+		private void write(Entry entry) {
+			var line = new StringBuilder().append('[').append(entry.level).append("] ");
+			if (entry.category != null) {
+				line.append(entry.category).append(": ");
+			}
+			line.append(entry.message);
+			if (entry.error != null && entry.error.getMessage() != null) {
+				line.append(" (").append(entry.error.getMessage()).append(')');
+			}
+
+			if (file != null) {
+				try {
+					file.write(line.toString());
+					file.newLine();
+					if (entry.error != null) {
+						var trace = new StringWriter();
+						entry.error.printStackTrace(new PrintWriter(trace));
+						file.write(trace.toString());
+					}
+				} catch (IOException e) {
+					toConsole("error writing to log file: " + e.getMessage());
 				}
+			}
+
+			if (entry.level != Level.DEBUG || file == null) {
+				toConsole(line.toString());
+			}
+		}
+
+		private void toConsole(String line) {
+			var second = System.nanoTime() / 1_000_000_000L;
+			if (second != consoleSecond) {
+				flushSuppressed();
+				consoleSecond = second;
+				consoleLines = 0;
+			}
+
+			if (consoleLines++ < CONSOLE_LINES_PER_SECOND) {
+				console.accept(line);
 			} else {
-				underlyingType = "";
+				suppressedLines++;
+			}
+		}
+
+		private void flushSuppressed() {
+			if (suppressedLines > 0) {
+				console.accept(String.format("(%d more messages%s)", suppressedLines,
+						file != null ? " in the log file" : " not shown"));
+				suppressedLines = 0;
+			}
+		}
+
+		// Waits for everything queued so far to be written, then prints the summary
+		@Override
+		public void close() throws IOException {
+			try {
+				queue.put(END);
+				writer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
 			}
+			// The file gets closed even if the console is gone
+			try {
+				flushSuppressed();
 
-			if (object.has("fields")) {
-				var classFields = object.getJSONObject("fields");
-				for (var fieldName : classFields.keySet()) {
-					fields.add(new REField(fieldName, classFields.getJSONObject(fieldName)));
+				if (dropped.get() > 0) {
+					console.accept(String.format("%d progress messages were dropped to keep up", dropped.get()));
 				}
+				if (failed.get() > 0) {
+					console.accept(String.format("%d messages could not be written", failed.get()));
+				}
+				if (!problems.isEmpty()) {
+					var summary = new StringBuilder("Problems during import:");
+					problems.entrySet()
+							.stream()
+							.sorted(Map.Entry.comparingByKey())
+							.forEach((problem) -> summary.append(String.format("\n  %s: %d", problem.getKey(),
+									problem.getValue().get())));
+					console.accept(summary.toString());
+				}
+			} finally {
+				if (file != null) {
+					file.close();
+				}
+			}
+		}
+	}
+
+	// One resolved instance field of a flattened type layout
+	private static class LayoutField {
+		public final int offsetFromBase;
+		public final int offsetFromFieldPtr;
+		public final DataType dataType;
+		public final int length;
+		public final String name;
+		public final String comment;
+
+		LayoutField(TypeTable table, int field, DataType dataType) {
+			this.offsetFromBase = table.fieldOffset(field);
+			this.offsetFromFieldPtr = table.fieldPtrOffset(field);
+			this.dataType = dataType;
+			this.length = dataType.getLength();
+			this.name = table.fieldName(field);
+			this.comment = table.fieldFlags(field);
+		}
+	}
+
+	// A dump type plus what the import built for it
+	private static class ImportedType extends RETypeDefinition {
+		public DataType dataType;
+		public DataType pointerTo;
+
+		// Memoized by getLayout/describeLayout, never stored in the dump cache
+		public LayoutField[] layout;
+		public String layoutDescription;
+		// Set by parseClass, null for types it hasn't reached (or that were bound)
+		public TypeState state;
+
+		ImportedType(RETypeDefinition definition) {
+			super(definition);
+		}
+	}
+
+	// Hands the script's task monitor to the dump model
+	private static class MonitorProgress implements Progress<CancelledException> {
+		private final TaskMonitor monitor;
+
+		MonitorProgress(TaskMonitor monitor) {
+			this.monitor = monitor;
+		}
+
+		@Override
+		public void initialize(long max, String message) {
+			monitor.initialize(max, message);
+		}
+
+		@Override
+		public void setProgress(long value) {
+			monitor.setProgress(value);
+		}
+
+		@Override
+		public void incrementProgress(long increment) {
+			monitor.incrementProgress(increment);
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return monitor.isCancelled();
+		}
+
+		@Override
+		public void checkCancelled() throws CancelledException {
+			monitor.checkCancelled();
+		}
+	}
+
+	// Sidecar file recording which types and method batches an import has committed and
+	// saved. The first line identifies the import, then "T <type>" and "M <batches>" lines are
+	// appended at every save.
+	private static class ImportCheckpoint implements Closeable {
+		private final File file;
+		private final HashSet<String> completedTypes = new HashSet<>();
+		private int completedMethodBatches;
+		private BufferedWriter writer;
+
+		private ImportCheckpoint(File file) {
+			this.file = file;
+		}
+
+		// Returns null if there is no checkpoint for this import
+		public static ImportCheckpoint load(File file, String key) throws IOException {
+			if (!file.isFile()) {
+				return null;
 			}
 
-			if (object.has("methods")) {
-				var classMethods = object.getJSONObject("methods");
-				for (var methodName : classMethods.keySet()) {
-					REMethod method = new REMethod(methodName, classMethods.getJSONObject(methodName));
-					methods.add(method);
+			var checkpoint = new ImportCheckpoint(file);
+			try (var reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				if (!key.equals(reader.readLine())) {
+					return null;
+				}
+
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.startsWith("T ")) {
+						checkpoint.completedTypes.add(line.substring(2));
+					} else if (line.startsWith("M ")) {
+						checkpoint.completedMethodBatches = Integer.parseInt(line.substring(2));
+					}
 				}
+			} catch (NumberFormatException e) {
+				// Cut off mid-write, everything before it is still good
 			}
+
+			checkpoint.writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+					StandardOpenOption.APPEND);
+			return checkpoint;
+		}
+
+		public static ImportCheckpoint create(File file, String key) throws IOException {
+			var checkpoint = new ImportCheckpoint(file);
+			checkpoint.writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+			checkpoint.writer.write(key);
+			checkpoint.writer.newLine();
+			checkpoint.writer.flush();
+			return checkpoint;
+		}
+
+		public boolean isTypeComplete(String name) {
+			return completedTypes.contains(name);
+		}
+
+		public int getCompletedTypeCount() {
+			return completedTypes.size();
+		}
+
+		public int getCompletedMethodBatches() {
+			return completedMethodBatches;
+		}
+
+		public void typesCommitted(Collection<String> names) throws IOException {
+			for (var name : names) {
+				writer.write("T ");
+				writer.write(name);
+				writer.newLine();
+			}
+			writer.flush();
 		}
 
-		public boolean hasFields() {
-			return !fields.isEmpty();
+		public void methodBatchCommitted(int batches) throws IOException {
+			completedMethodBatches = batches;
+			writer.write("M " + batches);
+			writer.newLine();
+			writer.flush();
+		}
+
+		// The import finished, nothing left to resume
+		public void delete() {
+			try {
+				close();
+			} catch (IOException e) {
+				// Deleting it is all that matters
+			}
+			file.delete();
 		}
 
-		public boolean hasParent() {
-			return !parent.isEmpty();
+		@Override
+		public void close() throws IOException {
+			writer.close();
 		}
 	}
 }
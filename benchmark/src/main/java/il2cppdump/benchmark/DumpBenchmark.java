@@ -0,0 +1,196 @@
+package il2cppdump.benchmark;
+
+import il2cppdump.DumpCache;
+import il2cppdump.DumpIndex;
+import il2cppdump.ImportPlan;
+import il2cppdump.Progress;
+import il2cppdump.StringTable;
+import il2cppdump.TypeLayouts;
+import il2cppdump.TypeLookup;
+import il2cppdump.TypeTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// The importer's stages that don't need Ghidra, on a dump written by dumpgenerator.py:
+//   java -jar target/benchmarks.jar -p dump=synthetic.json [-p roots=app] [-prof gc]
+// Each operation covers the whole dump, or every type the roots pull in.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DumpBenchmark {
+	@State(Scope.Benchmark)
+	public static class Dump {
+		@Param("synthetic.json")
+		public String dump;
+
+		// Prefix of the types the closure starts from, empty for all of them
+		@Param("")
+		public String roots;
+
+		public File file;
+		public StringTable strings;
+		public DumpIndex index;
+		public List<String> names;
+		public File cacheFile;
+		public File rebuiltCacheFile;
+		public DumpCache cache;
+		public TypeTable table;
+		public List<String> rootNames;
+		public TypeLookup types;
+		public List<String> plan;
+
+		@Setup(Level.Trial)
+		public void setup() throws IOException {
+			file = new File(dump);
+			if (!file.isFile()) {
+				throw new IOException("No dump at " + file.getAbsolutePath()
+						+ ", write one with dumpgenerator.py and pass it as -p dump=<file>");
+			}
+
+			strings = new StringTable();
+			index = new DumpIndex(file, strings, Progress.NONE);
+			names = new ArrayList<>(index.names());
+
+			cacheFile = File.createTempFile("il2cpp-benchmark", ".cache");
+			rebuiltCacheFile = File.createTempFile("il2cpp-benchmark", ".cache");
+			DumpCache.build(index, file, cacheFile, Progress.NONE);
+			cache = DumpCache.open(cacheFile, file, strings, Progress.NONE);
+
+			// Everything in memory, same as an unfiltered import after preloading
+			table = new TypeTable(strings);
+			table.addAll(cache, names, Progress.NONE);
+			// The importer's built-in types only matter to the closure's edges, not to its cost
+			types = new TypeLookup() {
+				@Override
+				public TypeTable table() {
+					return table;
+				}
+
+				@Override
+				public int find(String name) {
+					return table.ordinal(name);
+				}
+
+				@Override
+				public boolean isBuiltIn(String name) {
+					return false;
+				}
+			};
+
+			rootNames = names.stream().filter((name) -> name.startsWith(roots)).collect(Collectors.toList());
+			plan = ImportPlan.plan(rootNames, types, Progress.NONE);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			cacheFile.delete();
+			rebuiltCacheFile.delete();
+		}
+	}
+
+	// Finding every type in the JSON
+	@Benchmark
+	public DumpIndex ingest(Dump dump) throws IOException {
+		return new DumpIndex(dump.file, dump.strings, Progress.NONE);
+	}
+
+	// Reading every type's JSON into the type table, one by one
+	@Benchmark
+	public TypeTable tableFromJson(Dump dump) throws IOException {
+		var table = new TypeTable(dump.strings);
+		for (var name : dump.names) {
+			dump.index.loadInto(name, table);
+		}
+		return table;
+	}
+
+	// Same from the dump cache
+	@Benchmark
+	public TypeTable tableFromCache(Dump dump) throws IOException {
+		var table = new TypeTable(dump.strings);
+		for (var name : dump.names) {
+			dump.cache.loadInto(name, table);
+		}
+		return table;
+	}
+
+	// Reading the cache on all cores, what unfiltered imports do up front
+	@Benchmark
+	public TypeTable preloadFromCache(Dump dump) throws IOException {
+		var table = new TypeTable(dump.strings);
+		table.addAll(dump.cache, dump.names, Progress.NONE);
+		return table;
+	}
+
+	// Building the definition of every row, the importer's working copies of the types
+	@Benchmark
+	public void definitionsFromTable(Dump dump, Blackhole blackhole) {
+		for (int type = 0; type < dump.table.size(); type++) {
+			blackhole.consume(dump.table.load(type));
+		}
+	}
+
+	@Benchmark
+	public void buildCache(Dump dump) throws IOException {
+		DumpCache.build(dump.index, dump.file, dump.rebuiltCacheFile, Progress.NONE);
+	}
+
+	@Benchmark
+	public DumpCache openCache(Dump dump) throws IOException {
+		return DumpCache.open(dump.cacheFile, dump.file, dump.strings, Progress.NONE);
+	}
+
+	// Everything the roots pull in, with every definition already in memory
+	@Benchmark
+	public List<String> closure(Dump dump) {
+		return ImportPlan.plan(dump.rootNames, dump.types, Progress.NONE);
+	}
+
+	// Flattening every planned type's field layout, parents included, from an empty memo
+	@Benchmark
+	public TypeLayouts layouts(Dump dump) {
+		var layouts = new TypeLayouts(dump.types);
+		for (var name : dump.plan) {
+			layouts.get(dump.table.ordinal(name));
+		}
+		return layouts;
+	}
+
+	// The key each planned generic instantiation shares its structure by, genericLayouts=share
+	@Benchmark
+	public void sharedLayoutKeys(Dump dump, Blackhole blackhole) {
+		for (var name : dump.plan) {
+			blackhole.consume(ImportPlan.getSharedLayoutKey(dump.types, dump.table.ordinal(name), false));
+		}
+	}
+
+	// Same with genericLayouts=collapse, pointers to type arguments erased
+	@Benchmark
+	public void collapsedLayoutKeys(Dump dump, Blackhole blackhole) {
+		for (var name : dump.plan) {
+			blackhole.consume(ImportPlan.getSharedLayoutKey(dump.types, dump.table.ordinal(name), true));
+		}
+	}
+}
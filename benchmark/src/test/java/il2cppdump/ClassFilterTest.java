@@ -0,0 +1,58 @@
+package il2cppdump;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ClassFilterTest {
+	@Test
+	void emptyFilterMatchesEverything() {
+		var filter = ClassFilter.parse("");
+		assertTrue(filter.isEmpty());
+		assertTrue(filter.matches("snow.player.Foo"));
+		assertFalse(filter.matches(null));
+	}
+
+	@Test
+	void patternsArePrefixes() {
+		var filter = ClassFilter.parse("snow.player, app.*");
+		assertTrue(filter.matches("snow.player.Foo"));
+		assertTrue(filter.matches("app.Bar"));
+		assertFalse(filter.matches("apple.Bar"));
+		assertFalse(filter.matches("snow.enemy.Foo"));
+	}
+
+	@Test
+	void globExcludeBeatsLongerInclude() {
+		var filter = ClassFilter.parse("snow.player, -*Test?");
+		assertFalse(filter.matches("snow.player.ATest1"));
+		assertTrue(filter.matches("snow.player.ATest"));
+		assertTrue(filter.matches("snow.player.Foo"));
+		assertFalse(filter.matches("app.Foo"));
+	}
+
+	@Test
+	void prefixExcludeBeatsLongerInclude() {
+		var filter = ClassFilter.parse("-System.Collections, System.Collections.Generic.List`1");
+		assertFalse(filter.matches("System.Collections.Generic.List`1<System.Int32>"));
+	}
+
+	@Test
+	void excludesAloneKeepEverythingElse() {
+		var filter = ClassFilter.parse("-System.Collections.Generic; -*Test?");
+		assertTrue(filter.matches("System.String"));
+		assertTrue(filter.matches("snow.player.Foo"));
+		assertFalse(filter.matches("System.Collections.Generic.List`1"));
+		assertFalse(filter.matches("snow.player.ATest1"));
+	}
+
+	@Test
+	void globsMatchWholeName() {
+		var filter = ClassFilter.parse("app.*Manager snow.?.Foo");
+		assertTrue(filter.matches("app.SoundManager"));
+		assertFalse(filter.matches("app.SoundManagerBase"));
+		assertTrue(filter.matches("snow.a.Foo"));
+		assertFalse(filter.matches("snow.ab.Foo"));
+	}
+}
@@ -0,0 +1,289 @@
+import argparse
+import json
+import random
+
+# Generates a synthetic REFramework il2cpp dump for testing how the importer scales.
+# Everything the importer reads is there: class hierarchies, value types, enums (with
+# reflection_properties), generic instantiations, arrays, static getters, backing fields
+# and method signatures. Same arguments and seed give the same dump.
+#
+#   python dumpgenerator.py il2cpp_dump.json --types 100000 --depth 8 --generic-fanout 16
+
+parser = argparse.ArgumentParser(description="Generate a synthetic il2cpp dump")
+parser.add_argument("output")
+parser.add_argument("--types", type=int, default=10000, help="number of types to emit, arrays included")
+parser.add_argument("--depth", type=int, default=6, help="maximum inheritance depth below System.Object")
+parser.add_argument("--generic-fanout", type=int, default=8, help="instantiations per generic type")
+parser.add_argument("--generics", type=float, default=0.05, help="share of classes that are generic")
+parser.add_argument("--value-types", type=float, default=0.15, help="share of types that are value types")
+parser.add_argument("--enums", type=float, default=0.1, help="share of types that are enums")
+parser.add_argument("--fields", type=int, default=6, help="average instance fields per type")
+parser.add_argument("--methods", type=int, default=12, help="average methods per type")
+parser.add_argument("--namespaces", default="app,snow,via", help="comma separated namespaces")
+parser.add_argument("--seed", type=int, default=1)
+args = parser.parse_args()
+
+rng = random.Random(args.seed)
+namespaces = args.namespaces.split(",")
+
+OBJECT_SIZE = 0x10
+
+# Built-in value types the importer maps onto ghidra types, with their sizes
+primitives = {
+    "System.Boolean": 1, "System.Byte": 1, "System.SByte": 1, "System.Char": 2,
+    "System.Int16": 2, "System.UInt16": 2, "System.Int32": 4, "System.UInt32": 4,
+    "System.Int64": 8, "System.UInt64": 8, "System.Single": 4, "System.Double": 8,
+    "System.IntPtr": 8, "System.UIntPtr": 8, "System.Guid": 16, "via.vec3": 16,
+    "via.vec4": 16, "via.mat4": 64,
+}
+primitive_names = list(primitives)
+enum_underlying = ["System.Int32", "System.UInt32", "System.Byte", "System.Int64"]
+
+out = open(args.output, "w", encoding="utf8")
+first = True
+emitted = 0
+
+
+def emit(name, definition):
+    global first, emitted
+    out.write("{" if first else ",\n")
+    out.write(json.dumps(name))
+    out.write(":")
+    out.write(json.dumps(definition, separators=(",", ":")))
+    first = False
+    emitted += 1
+
+
+next_id = 1
+next_address = 0x140001000
+
+
+def new_id():
+    global next_id
+    next_id += 1
+    return next_id
+
+
+def new_address():
+    global next_address
+    next_address += rng.choice([0x10, 0x20, 0x30, 0x40, 0x80, 0x100])
+    return format(next_address, "x")
+
+
+# name -> (size, depth) of every class that can be inherited from
+classes = {}
+class_names = []
+# name -> size in value form
+value_types = dict(primitives)
+arrays = set()
+field_pool = list(primitive_names)
+
+
+def field_type():
+    # Mostly primitives, otherwise anything emitted so far
+    if rng.random() < 0.5 or len(field_pool) == len(primitives):
+        return rng.choice(primitive_names)
+    return rng.choice(field_pool)
+
+
+def field_size(type_name):
+    if type_name in value_types:
+        return value_types[type_name]
+    return 8
+
+
+def align(offset, size):
+    alignment = min(max(size, 1), 8)
+    return (offset + alignment - 1) // alignment * alignment
+
+
+def make_fields(start, count, value_type=False):
+    fields = {}
+    offset = start
+    for i in range(count):
+        type_name = field_type()
+        if not type_name.endswith("[]") and rng.random() < 0.05:
+            type_name = type_name + "[]"
+            arrays.add(type_name)
+        size = field_size(type_name)
+        offset = align(offset, size)
+
+        name = "_field%d" % i
+        if rng.random() < 0.2:
+            name = "<Field%d>k__BackingField" % i
+        fields[name] = {
+            "flags": "Private",
+            "id": new_id(),
+            "offset_from_base": "0x%x" % offset,
+            "offset_from_fieldptr": "0x%x" % (offset - OBJECT_SIZE if value_type else 0),
+            "type": type_name,
+            "default": None,
+        }
+        offset += size
+
+    # Statics don't take up room in the instance
+    for i in range(rng.randint(0, 2)):
+        fields["s_static%d" % i] = {
+            "flags": "Private | Static",
+            "id": new_id(),
+            "offset_from_base": "0x0",
+            "offset_from_fieldptr": "0x0",
+            "type": field_type(),
+            "default": None,
+        }
+    return fields, align(offset, 8)
+
+
+def make_methods(count, owner):
+    methods = {}
+    for i in range(count):
+        method_id = new_id()
+        static = rng.random() < 0.2
+        name = "Method%d" % i
+        if i == 0:
+            name = ".ctor"
+            static = False
+        elif static and rng.random() < 0.3:
+            name = "get_Instance%d" % i
+
+        params = []
+        for p in range(rng.choice([0, 0, 1, 1, 2, 3, 4])):
+            params.append({"name": "arg%d" % p, "type": field_type()})
+
+        returns = "System.Void" if rng.random() < 0.4 else field_type()
+        if name.startswith("get_"):
+            returns = owner
+
+        methods[name + str(method_id)] = {
+            "flags": "Public | Static" if static else "Public",
+            "function": new_address() if rng.random() > 0.02 else "0",
+            "id": method_id,
+            "invoke_id": rng.randint(0, 5000),
+            "impl_flags": "" if static else "HasThis",
+            "params": params,
+            "returns": {"type": returns},
+        }
+    return methods
+
+
+def method_count():
+    return max(0, int(rng.gauss(args.methods, args.methods / 2)))
+
+
+def field_count():
+    return max(0, int(rng.gauss(args.fields, args.fields / 2)))
+
+
+# Core types every dump has
+emit("System.Object", {"size": "%x" % OBJECT_SIZE, "methods": make_methods(4, "System.Object")})
+emit("System.ValueType", {"size": "%x" % OBJECT_SIZE, "parent": "System.Object"})
+emit("System.Enum", {"size": "%x" % OBJECT_SIZE, "parent": "System.ValueType"})
+emit("System.Array", {"size": "20", "parent": "System.Object"})
+emit("System.String", {"size": "18", "parent": "System.Object", "methods": make_methods(8, "System.String")})
+for name, size in primitives.items():
+    emit(name, {"size": "%x" % (OBJECT_SIZE + size), "parent": "System.ValueType"})
+classes["System.Object"] = (OBJECT_SIZE, 0)
+class_names.append("System.Object")
+field_pool.append("System.String")
+
+index = 0
+while emitted + len(arrays) < args.types:
+    index += 1
+    namespace = rng.choice(namespaces)
+    roll = rng.random()
+
+    if roll < args.enums:
+        name = "%s.Enum%d" % (namespace, index)
+        underlying = rng.choice(enum_underlying)
+        fields = {"value__": {
+            "flags": "Public", "id": new_id(), "offset_from_base": "0x%x" % OBJECT_SIZE,
+            "offset_from_fieldptr": "0x0", "type": underlying, "default": None,
+        }}
+        for i in range(rng.randint(2, 24)):
+            fields["Value%d" % i] = {
+                "flags": "Public | Static | Literal", "id": new_id(), "offset_from_base": "0x0",
+                "offset_from_fieldptr": "0x0", "type": name, "default": i,
+            }
+        emit(name, {
+            "size": "%x" % (OBJECT_SIZE + primitives[underlying]),
+            "parent": "System.Enum",
+            "fields": fields,
+            "reflection_properties": {"value__": {"type": underlying}},
+        })
+        value_types[name] = primitives[underlying]
+        field_pool.append(name)
+        continue
+
+    if roll < args.enums + args.value_types:
+        name = "%s.Struct%d" % (namespace, index)
+        fields, end = make_fields(OBJECT_SIZE, max(1, field_count()), value_type=True)
+        emit(name, {
+            "size": "%x" % end,
+            "parent": "System.ValueType",
+            "fields": fields,
+            "methods": make_methods(method_count() // 2, name),
+        })
+        value_types[name] = end - OBJECT_SIZE
+        field_pool.append(name)
+        continue
+
+    # Reference type somewhere in a hierarchy no deeper than --depth
+    parent = rng.choice(class_names)
+    parent_size, parent_depth = classes[parent]
+    if parent_depth >= args.depth:
+        parent, (parent_size, parent_depth) = "System.Object", classes["System.Object"]
+
+    if rng.random() < args.generics:
+        # One generic class, instantiated over a handful of arguments. Like in real dumps the
+        # fields that don't mention the argument are the same in every instantiation. The
+        # argument either doesn't show up in the fields at all (delegates, comparers), only
+        # behind a pointer (List`1._items) or by value, which changes the layout per argument.
+        generic = "%s.Container%d`1" % (namespace, index)
+        template, end = make_fields(parent_size, field_count())
+        usage = rng.choice(["none", "array", "value"])
+        for argument in rng.sample(field_pool, min(args.generic_fanout, len(field_pool))):
+            name = "%s<%s>" % (generic, argument)
+            fields = {key: dict(field, id=new_id()) for key, field in template.items()}
+            size = end
+            if usage == "array":
+                items = argument + "[]"
+                arrays.add(items)
+                fields["_items"] = {
+                    "flags": "Private", "id": new_id(), "offset_from_base": "0x%x" % end,
+                    "offset_from_fieldptr": "0x0", "type": items, "default": None,
+                }
+                size = end + 8
+            elif usage == "value":
+                offset = align(end, field_size(argument))
+                fields["_current"] = {
+                    "flags": "Private", "id": new_id(), "offset_from_base": "0x%x" % offset,
+                    "offset_from_fieldptr": "0x0", "type": argument, "default": None,
+                }
+                size = align(offset + field_size(argument), 8)
+            emit(name, {
+                "size": "%x" % size,
+                "parent": parent,
+                "fields": fields,
+                "methods": make_methods(method_count(), name),
+            })
+        continue
+
+    name = "%s.Class%d" % (namespace, index)
+    fields, end = make_fields(parent_size, field_count())
+    emit(name, {
+        "size": "%x" % end,
+        "parent": parent,
+        "fields": fields,
+        "methods": make_methods(method_count(), name),
+    })
+    classes[name] = (end, parent_depth + 1)
+    class_names.append(name)
+    field_pool.append(name)
+
+# Array types are referenced by name only, the dump still lists each of them once
+for name in sorted(arrays):
+    emit(name, {"size": "20", "parent": "System.Array"})
+
+out.write("}\n")
+out.close()
+print("wrote %d types to %s" % (emitted, args.output))
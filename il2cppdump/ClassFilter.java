@@ -0,0 +1,129 @@
+package il2cppdump;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.regex.Pattern;
+
+// Include/exclude rules for the types to import, e.g.
+//   snow.player, snow.enemy, via.physics, app.*, -System.Collections.Generic, -*Test?
+// Plain patterns are prefixes, '*' and '?' make a glob, a leading '-' excludes. A name
+// matches if no exclusion matches it and an include does (or there are no includes), so
+// an exclusion always beats an include, however specific.
+// Rules hang off a trie of their literal prefixes, so a lookup walks the name once and
+// only tests the globs on its path.
+public final class ClassFilter {
+	private static class Node {
+		final HashMap<Character, Node> children = new HashMap<>();
+		// Prefix rules ending here
+		boolean include;
+		boolean exclude;
+		ArrayList<GlobRule> globs;
+	}
+
+	private record GlobRule(Pattern pattern, boolean include) {
+	}
+
+	private final Node root = new Node();
+	private boolean hasIncludes;
+	private boolean isEmpty = true;
+
+	private ClassFilter() {
+	}
+
+	public static ClassFilter parse(String text) {
+		var filter = new ClassFilter();
+		if (text == null) {
+			return filter;
+		}
+
+		for (var pattern : text.split("[,;\\s]+")) {
+			var include = !pattern.startsWith("-");
+			if (!include) {
+				pattern = pattern.substring(1);
+			}
+			if (!pattern.isEmpty()) {
+				filter.add(pattern, include);
+			}
+		}
+		return filter;
+	}
+
+	private void add(String pattern, boolean include) {
+		isEmpty = false;
+		hasIncludes |= include;
+
+		int wildcard = 0;
+		while (wildcard < pattern.length() && pattern.charAt(wildcard) != '*' && pattern.charAt(wildcard) != '?') {
+			wildcard++;
+		}
+
+		var node = root;
+		for (int i = 0; i < wildcard; i++) {
+			node = node.children.computeIfAbsent(pattern.charAt(i), (c) -> new Node());
+		}
+
+		// 'app.*' is the same as the prefix 'app.'
+		var rest = pattern.substring(wildcard);
+		if (rest.isEmpty() || rest.equals("*")) {
+			if (include) {
+				node.include = true;
+			} else {
+				node.exclude = true;
+			}
+			return;
+		}
+
+		var regex = new StringBuilder(Pattern.quote(pattern.substring(0, wildcard)));
+		for (int i = wildcard; i < pattern.length(); i++) {
+			var c = pattern.charAt(i);
+			if (c == '*') {
+				regex.append(".*");
+			} else if (c == '?') {
+				regex.append('.');
+			} else {
+				regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+
+		if (node.globs == null) {
+			node.globs = new ArrayList<>();
+		}
+		node.globs.add(new GlobRule(Pattern.compile(regex.toString()), include));
+	}
+
+	public boolean isEmpty() {
+		return isEmpty;
+	}
+
+	public boolean matches(String name) {
+		if (name == null) {
+			return false;
+		}
+
+		var included = !hasIncludes;
+
+		var node = root;
+		for (int depth = 0; node != null; depth++) {
+			if (node.exclude) {
+				return false;
+			}
+			included |= node.include;
+
+			if (node.globs != null) {
+				for (var glob : node.globs) {
+					// Includes don't need testing once something included the name, exclusions
+					// always do
+					if ((!glob.include || !included) && glob.pattern.matcher(name).matches()) {
+						if (!glob.include) {
+							return false;
+						}
+						included = true;
+					}
+				}
+			}
+
+			node = depth < name.length() ? node.children.get(name.charAt(depth)) : null;
+		}
+		return included;
+	}
+}
@@ -0,0 +1,26 @@
+package il2cppdump;
+
+import java.io.IOException;
+import java.util.Collection;
+
+// Where type definitions are read from, a dump, its cache or a TypeTable already holding them
+public interface DefinitionSource {
+	// The table everything read from here is interned into
+	StringTable strings();
+
+	int size();
+
+	Collection<String> names();
+
+	boolean contains(String name);
+
+	// Appends the type to table, see TypeTable.add
+	void loadInto(String name, TypeTable table) throws IOException;
+
+	// One definition on its own, for types that are only looked at once
+	default RETypeDefinition load(String name) throws IOException {
+		var table = new TypeTable(strings());
+		loadInto(name, table);
+		return table.load(0);
+	}
+}
@@ -0,0 +1,279 @@
+package il2cppdump;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+
+// Pre-parsed definitions of a dump, stored next to it. The header keys the cache to
+// the dump's size, mtime and SHA-256, records are read lazily through the index at the
+// end of the file, same as DumpIndex does for the JSON itself.
+public class DumpCache implements DefinitionSource {
+	private static final int MAGIC = 0x52454643; // 'REFC'
+	private static final int VERSION = 2;
+	// magic, version, dump size, dump mtime, dump hash, type count, index offset
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 32 + 4 + 8;
+	private static final int MTIME_OFFSET = 4 + 4 + 8;
+
+	private final ByteBuffer cache;
+	private final StringTable strings;
+	private final byte[] hash;
+	private final HashMap<String, Integer> ordinals = new HashMap<>();
+	private final ArrayList<String> names = new ArrayList<>();
+	private final long[] offsets;
+	private final int[] lengths;
+
+	// Header fields, see HEADER_SIZE
+	private record Header(long size, long mtime, byte[] hash, int count, long indexOffset) {
+	}
+
+	// Reads and checks everything with plain reads and only maps the cache once it's known
+	// to be good. A mapping that's still alive keeps Windows from replacing the file, so a
+	// stale or broken cache couldn't be rebuilt.
+	private DumpCache(FileChannel channel, Header header, StringTable strings) throws IOException {
+		this.strings = strings;
+		this.hash = header.hash();
+		this.offsets = new long[header.count()];
+		this.lengths = new int[header.count()];
+
+		var index = ByteBuffer.allocate((int) (channel.size() - header.indexOffset()));
+		readFully(channel, index, header.indexOffset());
+		var in = new DataInputStream(new ByteArrayInputStream(index.array()));
+		for (int i = 0; i < header.count(); i++) {
+			var name = in.readUTF();
+			names.add(name);
+			ordinals.put(name, i);
+			offsets[i] = in.readLong();
+			lengths[i] = in.readInt();
+			if (offsets[i] < HEADER_SIZE || lengths[i] < 0 || offsets[i] + lengths[i] > header.indexOffset()) {
+				throw new IOException("Corrupt dump cache index at type " + name);
+			}
+		}
+
+		this.cache = channel.map(FileChannel.MapMode.READ_ONLY, 0, header.indexOffset());
+	}
+
+	// Returns null if the file isn't a cache of this version
+	private static Header readHeader(FileChannel channel) throws IOException {
+		if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+			return null;
+		}
+
+		var header = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(channel, header, 0);
+		header.flip();
+		if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+			return null;
+		}
+
+		long size = header.getLong();
+		long mtime = header.getLong();
+		var hash = new byte[32];
+		header.get(hash);
+		int count = header.getInt();
+		long indexOffset = header.getLong();
+
+		// An interrupted copy or a full disk, the header made it but the rest didn't
+		if (count < 0 || indexOffset < HEADER_SIZE || indexOffset > channel.size()) {
+			throw new IOException("Truncated dump cache");
+		}
+		return new Header(size, mtime, hash, count, indexOffset);
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("Truncated dump cache");
+			}
+		}
+	}
+
+	// Returns null if there is no cache or it does not belong to this dump
+	public static <X extends Exception> DumpCache open(File cacheFile, File dump, StringTable strings,
+			Progress<X> progress) throws IOException, X {
+		if (!cacheFile.isFile()) {
+			return null;
+		}
+
+		try (var channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+			var header = readHeader(channel);
+			if (header == null || header.size() != dump.length()) {
+				return null;
+			}
+
+			// Same size but touched since the cache was written, the content might still be
+			// identical (copied around, re-extracted, ...).
+			if (header.mtime() != dump.lastModified()) {
+				if (!Arrays.equals(header.hash(), hashOf(dump, progress))) {
+					return null;
+				}
+
+				// Remember the new mtime so the next run can skip hashing again
+				try (var writer = FileChannel.open(cacheFile.toPath(), StandardOpenOption.WRITE)) {
+					writer.write(ByteBuffer.allocate(8).putLong(0, dump.lastModified()), MTIME_OFFSET);
+				} catch (IOException e) {
+					// Read-only cache, we'll just hash again next time
+				}
+			}
+
+			return new DumpCache(channel, header, strings);
+		}
+	}
+
+	// Opens a cache without a dump to check it against, e.g. the cache of an older dump
+	public static DumpCache openStandalone(File cacheFile, StringTable strings) throws IOException {
+		try (var channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+			var header = readHeader(channel);
+			if (header == null) {
+				throw new IOException("Not a dump cache: " + cacheFile.getName());
+			}
+			return new DumpCache(channel, header, strings);
+		}
+	}
+
+	// Parses every type of an indexed dump on all cores and writes the records in index
+	// order, so the same dump always produces the same cache.
+	public static <X extends Exception> void build(DumpIndex index, File dump, File cacheFile, Progress<X> progress)
+			throws IOException, X {
+		progress.initialize(0, "Hashing IL2CPP Dump");
+		var digest = sha256();
+		digest.update(index.dump.duplicate());
+		var hash = digest.digest();
+
+		progress.initialize(index.size(), "Building dump cache");
+
+		var tempFile = new File(cacheFile.getPath() + ".tmp");
+		var indexBuffer = new ByteArrayOutputStream();
+		var indexOut = new DataOutputStream(indexBuffer);
+		var offset = new long[] { HEADER_SIZE };
+
+		try (var out = new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16)) {
+			out.write(new byte[HEADER_SIZE]);
+
+			Parallel.forEach(new ArrayList<>(index.names()), progress, (name) -> {
+				var table = new TypeTable(index.strings());
+				index.loadInto(name, table);
+				var record = new ByteArrayOutputStream();
+				table.write(0, new DataOutputStream(record));
+				return record.toByteArray();
+			}, (name, record) -> {
+				out.write(record);
+				indexOut.writeUTF(name);
+				indexOut.writeLong(offset[0]);
+				indexOut.writeInt(record.length);
+				offset[0] += record.length;
+			});
+
+			indexBuffer.writeTo(out);
+		} catch (Exception e) {
+			tempFile.delete();
+			throw e;
+		}
+
+		// Header last, an interrupted build never looks like a valid cache
+		var header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putLong(dump.length()).putLong(dump.lastModified());
+		header.put(hash).putInt(index.size()).putLong(offset[0]).flip();
+		try (var channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+			channel.write(header, 0);
+		}
+
+		Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	// SHA-256 of the dump the cache was built from
+	public byte[] dumpHash() {
+		return hash.clone();
+	}
+
+	@Override
+	public StringTable strings() {
+		return strings;
+	}
+
+	@Override
+	public int size() {
+		return names.size();
+	}
+
+	@Override
+	public Collection<String> names() {
+		return Collections.unmodifiableList(names);
+	}
+
+	@Override
+	public boolean contains(String name) {
+		return ordinals.containsKey(name);
+	}
+
+	@Override
+	public void loadInto(String name, TypeTable table) throws IOException {
+		int ordinal = ordinals.get(name);
+		var record = cache.duplicate().position((int) offsets[ordinal]);
+		var in = new DataInputStream(new ByteArrayInputStream(bytesOf(record, lengths[ordinal])));
+		table.add(name, in);
+	}
+
+	private static byte[] bytesOf(ByteBuffer buffer, int length) {
+		var bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	private static <X extends Exception> byte[] hashOf(File file, Progress<X> progress) throws IOException, X {
+		progress.initialize(file.length(), "Hashing IL2CPP Dump");
+
+		var digest = sha256();
+		var buffer = new byte[1 << 20];
+		try (var in = new FileInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+				progress.incrementProgress(read);
+				progress.checkCancelled();
+			}
+		}
+		return digest.digest();
+	}
+
+	public static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every JRE is required to ship SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// Missing names in the dump are stored as empty strings
+	static void writeString(DataOutput out, String value) throws IOException {
+		out.writeUTF(value != null ? value : "");
+	}
+
+	// Counterpart of writeString. Missing names have to come back as missing, or their ids
+	// wouldn't match definitions parsed from the JSON.
+	static String readString(DataInput in) throws IOException {
+		var value = in.readUTF();
+		return value.isEmpty() ? null : value;
+	}
+}
@@ -0,0 +1,88 @@
+package il2cppdump;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+
+// Byte ranges of every top-level type in a memory-mapped dump. Building it only skims
+// over the file, a type's JSON is decoded once somebody loads it.
+public class DumpIndex implements DefinitionSource {
+	final ByteBuffer dump;
+	private final StringTable strings;
+	private final HashMap<String, Integer> ordinals = new HashMap<>();
+	private final ArrayList<String> names = new ArrayList<>();
+	private int[] starts = new int[1 << 16];
+	private int[] ends = new int[1 << 16];
+
+	public <X extends Exception> DumpIndex(File file, StringTable strings, Progress<X> progress) throws IOException, X {
+		this.strings = strings;
+
+		// The mapping stays valid after the channel is closed
+		try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			dump = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		var reader = new DumpReader(dump.duplicate());
+		reader.beginObject();
+		while (reader.hasNext()) {
+			var name = reader.nextName();
+			int start = (int) reader.position();
+			reader.skipValue();
+			add(name, start, (int) reader.position());
+
+			if ((names.size() & 0x3FF) == 0) {
+				progress.setProgress(reader.position());
+				progress.checkCancelled();
+			}
+		}
+		reader.endObject();
+	}
+
+	@Override
+	public StringTable strings() {
+		return strings;
+	}
+
+	@Override
+	public int size() {
+		return names.size();
+	}
+
+	@Override
+	public Collection<String> names() {
+		return Collections.unmodifiableList(names);
+	}
+
+	@Override
+	public boolean contains(String name) {
+		return ordinals.containsKey(name);
+	}
+
+	@Override
+	public void loadInto(String name, TypeTable table) throws IOException {
+		int ordinal = ordinals.get(name);
+		var slice = dump.duplicate();
+		slice.limit(ends[ordinal]).position(starts[ordinal]);
+		table.add(name, new DumpReader(slice));
+	}
+
+	private void add(String name, int start, int end) {
+		int ordinal = names.size();
+		if (ordinal == starts.length) {
+			starts = Arrays.copyOf(starts, ordinal * 2);
+			ends = Arrays.copyOf(ends, ordinal * 2);
+		}
+
+		names.add(name);
+		ordinals.put(name, ordinal);
+		starts[ordinal] = start;
+		ends[ordinal] = end;
+	}
+}
@@ -0,0 +1,279 @@
+package il2cppdump;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Minimal pull parser for the dump. org.json can only hand out a fully built DOM, which
+// for a whole REFramework dump costs several times the size of the file. This reads the
+// raw UTF-8 bytes and lets the caller build its own objects while walking the file.
+public class DumpReader implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final InputStream source;
+	private final ByteBuffer buffer;
+	private long bufferStart;
+	private byte[] scratch = new byte[256];
+
+	public DumpReader(InputStream source) {
+		this.source = source;
+		this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		this.buffer.limit(0);
+	}
+
+	// Reads straight out of an existing buffer, e.g. a mapped slice of the dump.
+	// Positions are reported relative to the start of that buffer.
+	DumpReader(ByteBuffer buffer) {
+		this.source = null;
+		this.buffer = buffer;
+	}
+
+	// Absolute byte offset of the next unread byte
+	public long position() {
+		return bufferStart + buffer.position();
+	}
+
+	public void beginObject() throws IOException {
+		expect('{');
+	}
+
+	public void endObject() throws IOException {
+		expect('}');
+	}
+
+	public void beginArray() throws IOException {
+		expect('[');
+	}
+
+	public void endArray() throws IOException {
+		expect(']');
+	}
+
+	// Returns true if the current object/array has another element. Consumes the
+	// separating comma if there is one.
+	public boolean hasNext() throws IOException {
+		int c = peekClean();
+		if (c == ',') {
+			buffer.get();
+			c = peekClean();
+		}
+		return c != '}' && c != ']' && c != -1;
+	}
+
+	public String nextName() throws IOException {
+		var name = nextString();
+		expect(':');
+		return name;
+	}
+
+	public String nextString() throws IOException {
+		expect('"');
+
+		int length = 0;
+		while (true) {
+			int c = read();
+			if (c == -1) {
+				throw error("Unterminated string");
+			}
+			if (c == '"') {
+				break;
+			}
+			if (c == '\\') {
+				length = readEscape(length);
+				continue;
+			}
+
+			if (length == scratch.length) {
+				scratch = Arrays.copyOf(scratch, length * 2);
+			}
+			scratch[length++] = (byte) c;
+		}
+
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	public int nextInt() throws IOException {
+		int c = peekClean();
+		var token = c == '"' ? nextString() : nextLiteral();
+		try {
+			return parseInt(token);
+		} catch (NumberFormatException e) {
+			throw error("Expected a number but got '" + token + "'");
+		}
+	}
+
+	// Same semantics as org.json's optInt: numbers (and numeric strings) are truncated to
+	// an int, anything else yields the fallback.
+	public int nextIntOr(int fallback) throws IOException {
+		int c = peekClean();
+		String token;
+		if (c == '"') {
+			token = nextString();
+		} else if (c == '-' || (c >= '0' && c <= '9')) {
+			token = nextLiteral();
+		} else {
+			skipValue();
+			return fallback;
+		}
+
+		try {
+			return parseInt(token);
+		} catch (NumberFormatException e) {
+			return fallback;
+		}
+	}
+
+	public void skipValue() throws IOException {
+		int depth = 0;
+		do {
+			int c = peekClean();
+			switch (c) {
+				case '{', '[' -> {
+					buffer.get();
+					depth++;
+				}
+				case '}', ']' -> {
+					buffer.get();
+					depth--;
+				}
+				case ',', ':' -> buffer.get();
+				case '"' -> skipString();
+				case -1 -> throw error("Unexpected end of dump");
+				default -> nextLiteral();
+			}
+		} while (depth > 0);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (source != null) {
+			source.close();
+		}
+	}
+
+	private static int parseInt(String token) {
+		if (token.indexOf('.') != -1 || token.indexOf('e') != -1 || token.indexOf('E') != -1) {
+			return (int) Double.parseDouble(token);
+		}
+
+		try {
+			return (int) Long.parseLong(token);
+		} catch (NumberFormatException e) {
+			return new BigInteger(token).intValue();
+		}
+	}
+
+	private void skipString() throws IOException {
+		expect('"');
+		while (true) {
+			int c = read();
+			if (c == '"') {
+				return;
+			}
+			if (c == '\\') {
+				read();
+			} else if (c == -1) {
+				throw error("Unterminated string");
+			}
+		}
+	}
+
+	// Numbers, true, false and null
+	private String nextLiteral() throws IOException {
+		var literal = new StringBuilder();
+		while (true) {
+			int c = peek();
+			if (c == -1 || c == ',' || c == '}' || c == ']' || c == ':' || Character.isWhitespace(c)) {
+				break;
+			}
+			literal.append((char) buffer.get());
+		}
+
+		if (literal.length() == 0) {
+			throw error("Unexpected character '" + (char) peek() + "'");
+		}
+		return literal.toString();
+	}
+
+	private int readEscape(int length) throws IOException {
+		int c = read();
+		char decoded = switch (c) {
+			case 'b' -> '\b';
+			case 'f' -> '\f';
+			case 'n' -> '\n';
+			case 'r' -> '\r';
+			case 't' -> '\t';
+			case 'u' -> {
+				int value = 0;
+				for (int i = 0; i < 4; i++) {
+					value = (value << 4) | Character.digit(read(), 16);
+				}
+				yield (char) value;
+			}
+			case -1 -> throw error("Unterminated escape sequence");
+			default -> (char) c;
+		};
+
+		// Re-encode so the whole string can be decoded as UTF-8 in one go. Surrogate
+		// pairs don't show up in type or field names, so they are not handled.
+		var bytes = String.valueOf(decoded).getBytes(StandardCharsets.UTF_8);
+		if (length + bytes.length > scratch.length) {
+			scratch = Arrays.copyOf(scratch, (length + bytes.length) * 2);
+		}
+		System.arraycopy(bytes, 0, scratch, length, bytes.length);
+		return length + bytes.length;
+	}
+
+	private void expect(char expected) throws IOException {
+		int c = peekClean();
+		if (c != expected) {
+			throw error("Expected '" + expected + "' but got " + (c == -1 ? "end of dump" : "'" + (char) c + "'"));
+		}
+		buffer.get();
+	}
+
+	// Also used by the model for values that parse fine but make no sense
+	IOException error(String message) {
+		return new IOException(String.format("Malformed dump at byte %d: %s", position(), message));
+	}
+
+	private int peekClean() throws IOException {
+		while (true) {
+			int c = peek();
+			if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+				return c;
+			}
+			buffer.get();
+		}
+	}
+
+	private int peek() throws IOException {
+		if (!buffer.hasRemaining() && !fill()) {
+			return -1;
+		}
+		return buffer.get(buffer.position()) & 0xFF;
+	}
+
+	private int read() throws IOException {
+		if (!buffer.hasRemaining() && !fill()) {
+			return -1;
+		}
+		return buffer.get() & 0xFF;
+	}
+
+	private boolean fill() throws IOException {
+		if (source == null) {
+			return false;
+		}
+
+		bufferStart += buffer.limit();
+		int read = source.read(buffer.array(), 0, buffer.capacity());
+		buffer.position(0);
+		buffer.limit(Math.max(read, 0));
+		return read > 0;
+	}
+}
@@ -0,0 +1,205 @@
+package il2cppdump;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+// Works out what an import has to build from the definitions alone, before anything is
+// created in Ghidra. Reads the TypeTable's columns, no definition is built for this.
+public final class ImportPlan {
+	private ImportPlan() {
+	}
+
+	private static class PlanStep {
+		public final String name;
+		public final List<String> dependencies;
+		public int next;
+
+		PlanStep(String name, List<String> dependencies) {
+			this.name = name;
+			this.dependencies = dependencies;
+		}
+	}
+
+	// Transitive closure of the roots over everything the importer's parseClass would
+	// reach, ordered so that a type comes after its parent and field types (depth first,
+	// post order). Cycles can only go through pointers (fields of reference types, method
+	// signatures), those are fine in any order since parseClass registers a type before
+	// recursing.
+	public static <X extends Exception> List<String> plan(List<String> roots, TypeLookup types, Progress<X> progress)
+			throws X {
+		progress.initialize(roots.size(), "Planning import");
+
+		var plan = new ArrayList<String>();
+		var visited = new HashSet<String>();
+		var stack = new ArrayDeque<PlanStep>();
+
+		for (var root : roots) {
+			progress.checkCancelled();
+			progress.incrementProgress(1);
+
+			// Roots are imported even if they are value types, same as calling parseClass
+			// on them directly.
+			int type = types.find(root);
+			if (type < 0 || !visited.add(root)) {
+				continue;
+			}
+
+			stack.push(new PlanStep(root, getDependencies(types, type)));
+			while (!stack.isEmpty()) {
+				var step = stack.peek();
+				if (step.next < step.dependencies.size()) {
+					var dependency = step.dependencies.get(step.next++);
+					if (visited.add(dependency)) {
+						stack.push(new PlanStep(dependency, getDependencies(types, types.find(dependency))));
+					}
+				} else {
+					stack.pop();
+					plan.add(step.name);
+				}
+			}
+		}
+
+		return plan;
+	}
+
+	// Types parseClass would be called for while importing the type. Layout dependencies
+	// (parent, fields, array elements) are listed before method signature types.
+	public static List<String> getDependencies(TypeLookup types, int type) {
+		var table = types.table();
+		var dependencies = getLayoutDependencies(types, type);
+
+		for (int method = table.methodStart(type); method < table.methodEnd(type); method++) {
+			if (table.methodAddress(method) == 0) {
+				continue;
+			}
+
+			dependencies.add(table.methodReturnType(method));
+			for (int param = table.parameterStart(method); param < table.parameterEnd(method); param++) {
+				dependencies.add(table.parameterType(param));
+			}
+		}
+
+		dependencies.removeIf((name) -> types.findImportable(name) < 0);
+		return dependencies;
+	}
+
+	// The types parseClass recurses into while building the type's own structure
+	public static List<String> getLayoutDependencies(TypeLookup types, int type) {
+		var table = types.table();
+		var dependencies = new ArrayList<String>();
+
+		if (table.hasParent(type)) {
+			dependencies.add(table.parent(type));
+		}
+
+		var name = table.name(type);
+		if (name.endsWith("[]")) {
+			dependencies.add(name.replace("[]", ""));
+		}
+
+		if (!table.isEnum(type)) {
+			for (int field = table.fieldStart(type); field < table.fieldEnd(type); field++) {
+				if (!table.isStaticField(field)) {
+					dependencies.add(table.fieldType(field));
+				}
+			}
+		}
+
+		dependencies.removeIf((dependency) -> types.findImportable(dependency) < 0);
+		return dependencies;
+	}
+
+	// Everything a shared layout is built from, null if the type can't share one. With
+	// collapse, pointers to the type arguments are erased to System.Object.
+	public static String getSharedLayoutKey(TypeLookup types, int type, boolean collapse) {
+		var table = types.table();
+		// Value type layouts depend on the size of their arguments
+		if (type < 0 || table.isValueType(type) || table.isEnum(type)) {
+			return null;
+		}
+
+		var name = table.name(type);
+		var generic = getGenericDefinition(name);
+		if (generic == null) {
+			return null;
+		}
+
+		// Inherited fields are copied as they are, they must not depend on the arguments
+		var arguments = getGenericArguments(name);
+		var parent = table.parent(type);
+		if (mentionsAny(parent, arguments)) {
+			return null;
+		}
+
+		var key = new StringBuilder(generic).append('|').append(table.size(type)).append('|').append(parent);
+		for (int field = table.fieldStart(type); field < table.fieldEnd(type); field++) {
+			if (table.isStaticField(field)) {
+				continue;
+			}
+
+			var fieldType = table.fieldType(field);
+			if (mentionsAny(fieldType, arguments)) {
+				// Only pointers can be erased, values (enums too) have the argument's size
+				int fieldTypeRow = types.find(fieldType);
+				if (!collapse || types.isBuiltIn(fieldType)
+						|| (fieldTypeRow >= 0 && (table.isValueType(fieldTypeRow) || table.isEnum(fieldTypeRow)))) {
+					return null;
+				}
+				fieldType = "System.Object";
+			}
+			key.append('|').append(table.fieldName(field)).append('@').append(table.fieldOffset(field)).append(':')
+					.append(fieldType).append(':').append(table.fieldFlags(field));
+		}
+		return key.toString();
+	}
+
+	// "A.List`1<B.Item>" -> "A.List`1", null for anything that isn't a generic instantiation
+	public static String getGenericDefinition(String name) {
+		var open = name.indexOf('<');
+		if (open <= 0 || !name.endsWith(">") || name.lastIndexOf('`', open) < 0) {
+			return null;
+		}
+		return name.substring(0, open);
+	}
+
+	// Top level type arguments, "A.Dictionary`2<B,C.List`1<D>>" -> [B, C.List`1<D>]
+	public static List<String> getGenericArguments(String name) {
+		var arguments = new ArrayList<String>();
+		var open = name.indexOf('<');
+		int depth = 0;
+		int start = open + 1;
+		for (int i = start; i < name.length() - 1; i++) {
+			var c = name.charAt(i);
+			if (c == '<') {
+				depth++;
+			} else if (c == '>') {
+				depth--;
+			} else if (c == ',' && depth == 0) {
+				arguments.add(name.substring(start, i).trim());
+				start = i + 1;
+			}
+		}
+		arguments.add(name.substring(start, name.length() - 1).trim());
+		return arguments;
+	}
+
+	// Whether one of the type names appears in type as a whole name, not a prefix of another
+	public static boolean mentionsAny(String type, List<String> names) {
+		for (var name : names) {
+			if (name.isEmpty()) {
+				continue;
+			}
+
+			for (int at = type.indexOf(name); at >= 0; at = type.indexOf(name, at + 1)) {
+				var end = at + name.length();
+				if ((at == 0 || "<,[ ".indexOf(type.charAt(at - 1)) >= 0)
+						&& (end == type.length() || "<>,[ ".indexOf(type.charAt(end)) >= 0)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
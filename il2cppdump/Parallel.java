@@ -0,0 +1,55 @@
+package il2cppdump;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public final class Parallel {
+	private static final int BATCH_SIZE = 4096;
+
+	private Parallel() {
+	}
+
+	public interface Task<T> {
+		T apply(String name) throws IOException;
+	}
+
+	public interface Sink<T> {
+		void accept(String name, T result) throws IOException;
+	}
+
+	// Runs task for every name on all cores. Names are processed in batches, each batch's
+	// results are handed to sink in order on the calling thread, so sink does not need to be
+	// thread safe. Cancellation and progress go through progress between batches.
+	@SuppressWarnings("unchecked")
+	public static <T, X extends Exception> void forEach(List<String> names, Progress<X> progress, Task<T> task,
+			Sink<T> sink) throws IOException, X {
+		for (int start = 0; start < names.size(); start += BATCH_SIZE) {
+			var batch = names.subList(start, Math.min(start + BATCH_SIZE, names.size()));
+			var results = new Object[batch.size()];
+
+			try {
+				IntStream.range(0, batch.size()).parallel().forEach(i -> {
+					if (progress.isCancelled()) {
+						return;
+					}
+
+					try {
+						results[i] = task.apply(batch.get(i));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			progress.checkCancelled();
+
+			for (int i = 0; i < batch.size(); i++) {
+				sink.accept(batch.get(i), (T) results[i]);
+			}
+			progress.incrementProgress(batch.size());
+		}
+	}
+}
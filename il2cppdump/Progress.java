@@ -0,0 +1,39 @@
+package il2cppdump;
+
+// Progress and cancellation of the long running steps. The importer passes Ghidra's task
+// monitor through this, anything without one passes NONE.
+public interface Progress<X extends Exception> {
+	Progress<RuntimeException> NONE = new Progress<>() {
+		@Override
+		public void initialize(long max, String message) {
+		}
+
+		@Override
+		public void setProgress(long value) {
+		}
+
+		@Override
+		public void incrementProgress(long increment) {
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return false;
+		}
+
+		@Override
+		public void checkCancelled() {
+		}
+	};
+
+	void initialize(long max, String message);
+
+	void setProgress(long value);
+
+	void incrementProgress(long increment);
+
+	boolean isCancelled();
+
+	// Throws X once the user cancelled
+	void checkCancelled() throws X;
+}
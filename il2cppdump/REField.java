@@ -0,0 +1,42 @@
+package il2cppdump;
+
+import static il2cppdump.StringTable.ATTR_STATIC;
+
+// A field as built from a TypeTable row
+public class REField {
+	public String flags = "";
+	public int id;
+	public int offsetFromBase;
+	public int offsetFromFieldPtr;
+	private String type;
+	private int typeId = -1;
+	public String name;
+	public int defaultValue;
+	private int attributes;
+
+	REField(String name, String flags, int id, int offsetFromBase, int offsetFromFieldPtr, String type, int typeId,
+			int defaultValue, int attributes) {
+		this.name = name;
+		this.flags = flags;
+		this.id = id;
+		this.offsetFromBase = offsetFromBase;
+		this.offsetFromFieldPtr = offsetFromFieldPtr;
+		this.type = type;
+		this.typeId = typeId;
+		this.defaultValue = defaultValue;
+		this.attributes = attributes;
+	}
+
+	public String type() {
+		return type;
+	}
+
+	public boolean isStatic() {
+		return (attributes & ATTR_STATIC) != 0;
+	}
+
+	public boolean isSameAs(REField other) {
+		return offsetFromBase == other.offsetFromBase && offsetFromFieldPtr == other.offsetFromFieldPtr
+				&& defaultValue == other.defaultValue && flags == other.flags && typeId == other.typeId;
+	}
+}
@@ -0,0 +1,108 @@
+package il2cppdump;
+
+import static il2cppdump.StringTable.ATTR_HAS_THIS;
+import static il2cppdump.StringTable.ATTR_STATIC;
+
+import java.util.ArrayList;
+
+// A method as built from a TypeTable row
+public class REMethod {
+	public static class Parameter {
+		private final String name;
+		private final String type;
+		private final int nameId;
+		private final int typeId;
+
+		Parameter(String name, String type, int nameId, int typeId) {
+			this.name = name;
+			this.type = type;
+			this.nameId = nameId;
+			this.typeId = typeId;
+		}
+
+		public String name() {
+			return name;
+		}
+
+		public String type() {
+			return type;
+		}
+
+		public int nameId() {
+			return nameId;
+		}
+
+		public int typeId() {
+			return typeId;
+		}
+	}
+
+	public String name;
+	public String flags = "";
+	public long address;
+	public int id;
+	public int invokeId;
+	public String implFlags = "";
+	public ArrayList<Parameter> parameters = new ArrayList<>(0);
+	private String returnType;
+	private int returnTypeId = -1;
+	private int attributes;
+
+	REMethod(String name, String flags, long address, int id, int invokeId, String implFlags, String returnType,
+			int returnTypeId, int attributes, ArrayList<Parameter> parameters) {
+		this.name = name;
+		this.flags = flags;
+		this.address = address;
+		this.id = id;
+		this.invokeId = invokeId;
+		this.implFlags = implFlags;
+		this.returnType = returnType;
+		this.returnTypeId = returnTypeId;
+		this.attributes = attributes;
+		this.parameters = parameters;
+	}
+
+	public String returnType() {
+		return returnType;
+	}
+
+	public int returnTypeId() {
+		return returnTypeId;
+	}
+
+	public boolean isStatic() {
+		return (attributes & ATTR_STATIC) != 0;
+	}
+
+	public boolean hasThis() {
+		return (attributes & ATTR_HAS_THIS) != 0;
+	}
+
+	// Identifies a method across dumps. Ids are not stable between game versions, the
+	// name and parameter types are.
+	public String key() {
+		var key = new StringBuilder(name).append('(');
+		for (int i = 0; i < parameters.size(); i++) {
+			if (i > 0) {
+				key.append(',');
+			}
+			key.append(parameters.get(i).type());
+		}
+		return key.append(')').toString();
+	}
+
+	// Interned strings and ids come from the same table, so identity comparisons are enough
+	public boolean isSameAs(REMethod other) {
+		if (address != other.address || flags != other.flags || implFlags != other.implFlags
+				|| returnTypeId != other.returnTypeId || parameters.size() != other.parameters.size()) {
+			return false;
+		}
+
+		for (int i = 0; i < parameters.size(); i++) {
+			if (parameters.get(i).nameId != other.parameters.get(i).nameId) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,95 @@
+package il2cppdump;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// A type definition as built from a TypeTable row, for the types being imported
+public class RETypeDefinition {
+	public String name;
+	public int size;
+	private String parent = "";
+	private int parentId = -1;
+	public ArrayList<REField> fields = new ArrayList<>(0);
+	public ArrayList<REMethod> methods = new ArrayList<>(0);
+	public boolean isValueType;
+	public boolean isEnum;
+	private String underlyingType = "";
+	private int underlyingTypeId = -1;
+
+	// For subclasses that keep their own state per type, shares the members of definition
+	protected RETypeDefinition(RETypeDefinition definition) {
+		name = definition.name;
+		size = definition.size;
+		parent = definition.parent;
+		parentId = definition.parentId;
+		fields = definition.fields;
+		methods = definition.methods;
+		isValueType = definition.isValueType;
+		isEnum = definition.isEnum;
+		underlyingType = definition.underlyingType;
+		underlyingTypeId = definition.underlyingTypeId;
+	}
+
+	// Names are resolved up front, the ids are only kept to compare definitions of the same
+	// string table
+	RETypeDefinition(String name, int size, String parent, int parentId, boolean isValueType, boolean isEnum,
+			String underlyingType, int underlyingTypeId, ArrayList<REField> fields, ArrayList<REMethod> methods) {
+		this.name = name;
+		this.size = size;
+		this.parent = parent;
+		this.parentId = parentId;
+		this.isValueType = isValueType;
+		this.isEnum = isEnum;
+		this.underlyingType = underlyingType;
+		this.underlyingTypeId = underlyingTypeId;
+		this.fields = fields;
+		this.methods = methods;
+	}
+
+	public boolean hasFields() {
+		return !fields.isEmpty();
+	}
+
+	public boolean hasParent() {
+		return parentId >= 0;
+	}
+
+	// Rough heap cost, only used to keep memory-bounded imports within their budget.
+	// Must not change while the definition is resident.
+	public long estimateSize() {
+		long size = 128 + fields.size() * 64L;
+		for (var method : methods) {
+			size += 80 + method.parameters.size() * 24L;
+		}
+		return size;
+	}
+
+	public String parent() {
+		return parent;
+	}
+
+	public String underlyingType() {
+		return underlyingType;
+	}
+
+	// Everything that ends up in the type's own structure or enum
+	public boolean hasSameLayout(RETypeDefinition other) {
+		if (size != other.size || parentId != other.parentId || underlyingTypeId != other.underlyingTypeId
+				|| fields.size() != other.fields.size()) {
+			return false;
+		}
+
+		var otherFields = new HashMap<String, REField>();
+		for (var field : other.fields) {
+			otherFields.put(field.name, field);
+		}
+
+		for (var field : fields) {
+			var otherField = otherFields.get(field.name);
+			if (otherField == null || !field.isSameAs(otherField)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
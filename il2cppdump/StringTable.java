@@ -0,0 +1,66 @@
+package il2cppdump;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Every type name, flag string and method/parameter name in the dump repeats thousands
+// of times. The model keeps them as ids into this table (or as the table's one shared
+// copy of the string), so each distinct string is held once per import. Every import
+// creates its own and hands it to the dump, its cache and the type table, ids and interned
+// strings of different tables can't be compared.
+public class StringTable {
+	static final int ATTR_STATIC = 1;
+	static final int ATTR_HAS_THIS = 2;
+	static final int ATTR_BACKING_FIELD = 4;
+
+	private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, Integer> attributes = new ConcurrentHashMap<>();
+	private volatile String[] values = new String[1024];
+	private int count;
+
+	public int id(String s) {
+		if (s == null) {
+			return -1;
+		}
+		var id = ids.get(s);
+		return id != null ? id : add(s);
+	}
+
+	public String get(int id) {
+		return id >= 0 ? values[id] : null;
+	}
+
+	public String intern(String s) {
+		return get(id(s));
+	}
+
+	// Flag strings are decoded into ATTR_* bits once per distinct string
+	public int attributes(String flags) {
+		return attributes.computeIfAbsent(flags, StringTable::decodeAttributes);
+	}
+
+	private synchronized int add(String s) {
+		var id = ids.get(s);
+		if (id != null) {
+			return id;
+		}
+		if (count == values.length) {
+			values = Arrays.copyOf(values, count * 2);
+		}
+		values[count] = s;
+		ids.put(s, count);
+		return count++;
+	}
+
+	private static int decodeAttributes(String flags) {
+		int bits = 0;
+		for (var flag : flags.split("\\|")) {
+			switch (flag.trim()) {
+				case "Static" -> bits |= ATTR_STATIC;
+				case "HasThis" -> bits |= ATTR_HAS_THIS;
+				case "BackingField" -> bits |= ATTR_BACKING_FIELD;
+			}
+		}
+		return bits;
+	}
+}
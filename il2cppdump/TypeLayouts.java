@@ -0,0 +1,52 @@
+package il2cppdump;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Flattened instance field layouts: a type's own instance fields (those whose type is in the
+// dump) followed by its parent's layout, as TypeTable field rows. Types without a size or
+// without fields of their own get an empty layout, their parents' fields aren't copied into
+// them either. Each type is flattened once from its own fields plus the parent's memoized
+// layout, so deep hierarchies don't walk every ancestor again for every subclass.
+//
+// Not thread safe, the importer builds layouts on the script thread only.
+public final class TypeLayouts {
+	private static final int[] NO_FIELDS = new int[0];
+
+	private final TypeLookup types;
+	private final HashMap<Integer, int[]> layouts = new HashMap<>();
+
+	public TypeLayouts(TypeLookup types) {
+		this.types = types;
+	}
+
+	public int[] get(int type) {
+		if (type < 0) {
+			return NO_FIELDS;
+		}
+
+		var layout = layouts.get(type);
+		if (layout != null) {
+			return layout;
+		}
+
+		var table = types.table();
+		layout = NO_FIELDS;
+		if (table.size(type) != 0 && table.fieldEnd(type) > table.fieldStart(type)) {
+			var inherited = table.hasParent(type) ? get(types.find(table.parent(type))) : NO_FIELDS;
+			layout = new int[table.fieldEnd(type) - table.fieldStart(type) + inherited.length];
+
+			int count = 0;
+			for (int field = table.fieldStart(type); field < table.fieldEnd(type); field++) {
+				if (!table.isStaticField(field) && types.find(table.fieldType(field)) >= 0) {
+					layout[count++] = field;
+				}
+			}
+			System.arraycopy(inherited, 0, layout, count, inherited.length);
+			layout = Arrays.copyOf(layout, count + inherited.length);
+		}
+
+		layouts.put(type, layout);
+		return layout;
+	}
+}
@@ -0,0 +1,22 @@
+package il2cppdump;
+
+// The dump's types as ImportPlan sees them, rows of a TypeTable
+public interface TypeLookup {
+	TypeTable table();
+
+	// Row of name in table(), read from the dump first if it isn't there yet. -1 for names
+	// that aren't in the dump.
+	int find(String name);
+
+	// Built-in and value types the importer maps onto Ghidra's own types instead of
+	// building them from the dump
+	boolean isBuiltIn(String name);
+
+	// Row of the type the importer would build for this name, -1 if it wouldn't build one
+	default int findImportable(String name) {
+		if (name == null || name.isEmpty() || name.charAt(0) == '/' || isBuiltIn(name)) {
+			return -1;
+		}
+		return find(name);
+	}
+}
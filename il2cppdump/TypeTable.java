@@ -0,0 +1,739 @@
+package il2cppdump;
+
+import static il2cppdump.StringTable.ATTR_STATIC;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+// Struct-of-arrays store for the dump's type definitions. Types, fields, methods and
+// parameters are rows of primitive columns, every name, type and flag string is an id into
+// the StringTable. A type costs a few dozen bytes this way instead of a graph of objects
+// with a list per member, so a whole dump stays resident. ImportPlan reads the columns
+// directly, RETypeDefinitions are only built (load) for the types being imported.
+//
+// Rows are only ever appended, by one thread at a time. Readers find a type through its name
+// first, and the row and everything it points to is complete by then, so reading takes no
+// locks. The columns are volatile because appending replaces them when they grow.
+public class TypeTable implements DefinitionSource {
+	private static final int BATCH_SIZE = 4096;
+	private static final byte KIND_VALUE_TYPE = 1;
+	private static final byte KIND_ENUM = 2;
+
+	private final StringTable strings;
+	private final ConcurrentHashMap<String, Integer> ordinals = new ConcurrentHashMap<>();
+
+	// Per type. fieldStarts/methodStarts have one more entry than there are types, a type's
+	// members run up to the next type's start.
+	private volatile int[] typeNames = new int[16];
+	private volatile int[] sizes = new int[16];
+	private volatile int[] parents = new int[16];
+	private volatile int[] underlyingTypes = new int[16];
+	private volatile byte[] kinds = new byte[16];
+	private volatile int[] fieldStarts = new int[16];
+	private volatile int[] methodStarts = new int[16];
+	private int typeCount;
+
+	private volatile int[] fieldNames = new int[16];
+	private volatile int[] fieldFlags = new int[16];
+	private volatile byte[] fieldAttributes = new byte[16];
+	private volatile int[] fieldIds = new int[16];
+	private volatile int[] fieldOffsets = new int[16];
+	private volatile int[] fieldPtrOffsets = new int[16];
+	private volatile int[] fieldTypes = new int[16];
+	private volatile int[] fieldDefaults = new int[16];
+	private int fieldCount;
+
+	// Same as fieldStarts, per method
+	private volatile int[] methodNames = new int[16];
+	private volatile int[] methodFlags = new int[16];
+	private volatile int[] methodImplFlags = new int[16];
+	private volatile byte[] methodAttributes = new byte[16];
+	private volatile long[] methodAddresses = new long[16];
+	private volatile int[] methodIds = new int[16];
+	private volatile int[] methodInvokeIds = new int[16];
+	private volatile int[] methodReturnTypes = new int[16];
+	private volatile int[] parameterStarts = new int[16];
+	private int methodCount;
+
+	private volatile int[] parameterNames = new int[16];
+	private volatile int[] parameterTypes = new int[16];
+	private int parameterCount;
+
+	public TypeTable(StringTable strings) {
+		this.strings = strings;
+	}
+
+	// Reads the type's JSON object at reader into a new row and returns it
+	public synchronized int add(String name, DumpReader reader) throws IOException {
+		var existing = ordinals.get(name);
+		if (existing != null) {
+			reader.skipValue();
+			return existing;
+		}
+
+		int fieldsBefore = fieldCount;
+		int methodsBefore = methodCount;
+		int parametersBefore = parameterCount;
+		try {
+			// Keys can come in any order, so the enum's underlying type is only picked once
+			// the whole object has been read.
+			int size = 0;
+			String parent = "";
+			String reflectedUnderlyingType = null;
+
+			reader.beginObject();
+			while (reader.hasNext()) {
+				switch (reader.nextName()) {
+					case "size" -> size = Integer.parseInt(reader.nextString(), 16);
+					case "parent" -> parent = reader.nextString();
+					case "fields" -> {
+						reader.beginObject();
+						while (reader.hasNext()) {
+							var fieldName = reader.nextName();
+							readField(fieldName, reader);
+						}
+						reader.endObject();
+					}
+					case "methods" -> {
+						reader.beginObject();
+						while (reader.hasNext()) {
+							var methodName = reader.nextName();
+							readMethod(methodName, reader);
+						}
+						reader.endObject();
+					}
+					case "reflection_properties" -> reflectedUnderlyingType = readValueFieldType(reader);
+					default -> reader.skipValue();
+				}
+			}
+			reader.endObject();
+
+			var kind = kindOf(parent);
+			int underlyingType = -1;
+			if (kind == KIND_ENUM) {
+				// Get the enums underlying type
+				if (reflectedUnderlyingType != null) {
+					underlyingType = strings.id(reflectedUnderlyingType);
+				} else {
+					int valueField = strings.id("value__");
+					for (int field = fieldsBefore; field < fieldCount; field++) {
+						if (fieldNames[field] == valueField) {
+							underlyingType = fieldTypes[field];
+						}
+					}
+				}
+
+				if (underlyingType < 0) {
+					throw reader.error("enum " + name + " has no underlying type");
+				}
+			}
+
+			return appendType(name, size, parent.isEmpty() ? -1 : strings.id(parent), underlyingType, kind);
+		} catch (IOException | RuntimeException e) {
+			// Nothing points at the members read so far, dropping them is enough
+			fieldCount = fieldsBefore;
+			methodCount = methodsBefore;
+			parameterCount = parametersBefore;
+			throw e;
+		}
+	}
+
+	// Reads a dump cache record (see write) into a new row and returns it
+	public synchronized int add(String name, DataInput in) throws IOException {
+		var existing = ordinals.get(name);
+		if (existing != null) {
+			return existing;
+		}
+
+		int fieldsBefore = fieldCount;
+		int methodsBefore = methodCount;
+		int parametersBefore = parameterCount;
+		try {
+			int size = in.readInt();
+			var parent = in.readUTF();
+			int underlyingType = strings.id(DumpCache.readString(in));
+
+			int fields = in.readInt();
+			for (int i = 0; i < fields; i++) {
+				int fieldName = strings.id(in.readUTF());
+				var flags = strings.intern(in.readUTF());
+				int id = in.readInt();
+				int offsetFromBase = in.readInt();
+				int offsetFromFieldPtr = in.readInt();
+				int type = strings.id(DumpCache.readString(in));
+				int defaultValue = in.readInt();
+				appendField(fieldName, strings.id(flags), strings.attributes(flags), id, offsetFromBase,
+						offsetFromFieldPtr, type, defaultValue);
+			}
+
+			int methods = in.readInt();
+			for (int i = 0; i < methods; i++) {
+				int methodName = strings.id(in.readUTF());
+				var flags = strings.intern(in.readUTF());
+				long address = in.readLong();
+				int id = in.readInt();
+				int invokeId = in.readInt();
+				var implFlags = strings.intern(in.readUTF());
+				int returnType = strings.id(DumpCache.readString(in));
+
+				int parameters = in.readInt();
+				for (int j = 0; j < parameters; j++) {
+					appendParameter(strings.id(DumpCache.readString(in)), strings.id(DumpCache.readString(in)));
+				}
+				appendMethod(methodName, strings.id(flags), strings.id(implFlags),
+						strings.attributes(flags) | strings.attributes(implFlags), address, id, invokeId, returnType);
+			}
+
+			return appendType(name, size, parent.isEmpty() ? -1 : strings.id(parent), underlyingType, kindOf(parent));
+		} catch (IOException | RuntimeException e) {
+			fieldCount = fieldsBefore;
+			methodCount = methodsBefore;
+			parameterCount = parametersBefore;
+			throw e;
+		}
+	}
+
+	// Copies a row of another table, returns the new row. Both have to share a string table.
+	public synchronized int add(TypeTable from, int type) {
+		if (from.strings != strings) {
+			throw new IllegalArgumentException("Type tables of different string tables");
+		}
+
+		var existing = ordinals.get(from.name(type));
+		if (existing != null) {
+			return existing;
+		}
+
+		for (int field = from.fieldStart(type); field < from.fieldEnd(type); field++) {
+			appendField(from.fieldNames[field], from.fieldFlags[field], from.fieldAttributes[field],
+					from.fieldIds[field], from.fieldOffsets[field], from.fieldPtrOffsets[field], from.fieldTypes[field],
+					from.fieldDefaults[field]);
+		}
+
+		for (int method = from.methodStart(type); method < from.methodEnd(type); method++) {
+			for (int parameter = from.parameterStart(method); parameter < from.parameterEnd(method); parameter++) {
+				appendParameter(from.parameterNames[parameter], from.parameterTypes[parameter]);
+			}
+			appendMethod(from.methodNames[method], from.methodFlags[method], from.methodImplFlags[method],
+					from.methodAttributes[method], from.methodAddresses[method], from.methodIds[method],
+					from.methodInvokeIds[method], from.methodReturnTypes[method]);
+		}
+
+		return appendType(from.name(type), from.sizes[type], from.parents[type], from.underlyingTypes[type],
+				from.kinds[type]);
+	}
+
+	// Reads name from source unless it's already here. Returns its row, -1 if source doesn't
+	// have it either.
+	public synchronized int add(String name, DefinitionSource source) throws IOException {
+		var existing = ordinals.get(name);
+		if (existing != null) {
+			return existing;
+		}
+		if (!source.contains(name)) {
+			return -1;
+		}
+
+		source.loadInto(name, this);
+		return ordinal(name);
+	}
+
+	// Reads every type of names that isn't here yet from source, on all cores. Each worker
+	// reads its share of a batch into a table of its own and those are appended in order, so
+	// the rows come out the same as reading the names one by one. Cancellation and progress
+	// go through progress between batches, same as Parallel.forEach.
+	public <X extends Exception> void addAll(DefinitionSource source, List<String> names, Progress<X> progress)
+			throws IOException, X {
+		int workers = Runtime.getRuntime().availableProcessors();
+		for (int start = 0; start < names.size(); start += BATCH_SIZE) {
+			var batch = names.subList(start, Math.min(start + BATCH_SIZE, names.size()));
+			var parts = new TypeTable[workers];
+
+			try {
+				IntStream.range(0, workers).parallel().forEach(worker -> {
+					if (progress.isCancelled()) {
+						return;
+					}
+
+					var part = new TypeTable(strings);
+					int end = batch.size() * (worker + 1) / workers;
+					for (int i = batch.size() * worker / workers; i < end; i++) {
+						var name = batch.get(i);
+						if (contains(name)) {
+							continue;
+						}
+
+						try {
+							source.loadInto(name, part);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}
+					parts[worker] = part;
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			progress.checkCancelled();
+
+			synchronized (this) {
+				for (var part : parts) {
+					for (int type = 0; type < part.typeCount; type++) {
+						add(part, type);
+					}
+				}
+			}
+			progress.incrementProgress(batch.size());
+		}
+	}
+
+	// Builds the definition of a row, the import's working copy of the type
+	public RETypeDefinition load(int type) {
+		var fields = new ArrayList<REField>(fieldEnd(type) - fieldStart(type));
+		for (int field = fieldStart(type); field < fieldEnd(type); field++) {
+			fields.add(new REField(fieldName(field), fieldFlags(field), fieldIds[field], fieldOffsets[field],
+					fieldPtrOffsets[field], fieldType(field), fieldTypes[field], fieldDefaults[field],
+					fieldAttributes[field]));
+		}
+
+		var methods = new ArrayList<REMethod>(methodEnd(type) - methodStart(type));
+		for (int method = methodStart(type); method < methodEnd(type); method++) {
+			var parameters = new ArrayList<REMethod.Parameter>(parameterEnd(method) - parameterStart(method));
+			for (int parameter = parameterStart(method); parameter < parameterEnd(method); parameter++) {
+				parameters.add(new REMethod.Parameter(strings.get(parameterNames[parameter]), parameterType(parameter),
+						parameterNames[parameter], parameterTypes[parameter]));
+			}
+			methods.add(new REMethod(strings.get(methodNames[method]), strings.get(methodFlags[method]),
+					methodAddresses[method], methodIds[method], methodInvokeIds[method],
+					strings.get(methodImplFlags[method]), methodReturnType(method), methodReturnTypes[method],
+					methodAttributes[method], parameters));
+		}
+
+		var underlyingType = underlyingTypes[type] >= 0 ? strings.get(underlyingTypes[type]) : "";
+		return new RETypeDefinition(name(type), sizes[type], parent(type), parents[type], isValueType(type),
+				isEnum(type), underlyingType, underlyingTypes[type], fields, methods);
+	}
+
+	// Counterpart of add(String, DataInput). The name itself is stored by whoever indexes
+	// the records.
+	public void write(int type, DataOutput out) throws IOException {
+		out.writeInt(sizes[type]);
+		out.writeUTF(parent(type));
+		DumpCache.writeString(out, strings.get(underlyingTypes[type]));
+
+		out.writeInt(fieldEnd(type) - fieldStart(type));
+		for (int field = fieldStart(type); field < fieldEnd(type); field++) {
+			out.writeUTF(fieldName(field));
+			out.writeUTF(fieldFlags(field));
+			out.writeInt(fieldIds[field]);
+			out.writeInt(fieldOffsets[field]);
+			out.writeInt(fieldPtrOffsets[field]);
+			DumpCache.writeString(out, fieldType(field));
+			out.writeInt(fieldDefaults[field]);
+		}
+
+		out.writeInt(methodEnd(type) - methodStart(type));
+		for (int method = methodStart(type); method < methodEnd(type); method++) {
+			out.writeUTF(strings.get(methodNames[method]));
+			out.writeUTF(strings.get(methodFlags[method]));
+			out.writeLong(methodAddresses[method]);
+			out.writeInt(methodIds[method]);
+			out.writeInt(methodInvokeIds[method]);
+			out.writeUTF(strings.get(methodImplFlags[method]));
+			DumpCache.writeString(out, methodReturnType(method));
+
+			out.writeInt(parameterEnd(method) - parameterStart(method));
+			for (int parameter = parameterStart(method); parameter < parameterEnd(method); parameter++) {
+				DumpCache.writeString(out, strings.get(parameterNames[parameter]));
+				DumpCache.writeString(out, parameterType(parameter));
+			}
+		}
+	}
+
+	// Row of name, -1 if it hasn't been read into this table
+	public int ordinal(String name) {
+		var type = name != null ? ordinals.get(name) : null;
+		return type != null ? type : -1;
+	}
+
+	public String name(int type) {
+		return strings.get(typeNames[type]);
+	}
+
+	public int size(int type) {
+		return sizes[type];
+	}
+
+	public boolean hasParent(int type) {
+		return parents[type] >= 0;
+	}
+
+	public String parent(int type) {
+		return hasParent(type) ? strings.get(parents[type]) : "";
+	}
+
+	public boolean isValueType(int type) {
+		return kinds[type] == KIND_VALUE_TYPE;
+	}
+
+	public boolean isEnum(int type) {
+		return kinds[type] == KIND_ENUM;
+	}
+
+	public int fieldStart(int type) {
+		return fieldStarts[type];
+	}
+
+	public int fieldEnd(int type) {
+		return fieldStarts[type + 1];
+	}
+
+	public String fieldName(int field) {
+		return strings.get(fieldNames[field]);
+	}
+
+	public String fieldFlags(int field) {
+		return strings.get(fieldFlags[field]);
+	}
+
+	public int fieldOffset(int field) {
+		return fieldOffsets[field];
+	}
+
+	public int fieldPtrOffset(int field) {
+		return fieldPtrOffsets[field];
+	}
+
+	public String fieldType(int field) {
+		return strings.get(fieldTypes[field]);
+	}
+
+	public boolean isStaticField(int field) {
+		return (fieldAttributes[field] & ATTR_STATIC) != 0;
+	}
+
+	public int methodStart(int type) {
+		return methodStarts[type];
+	}
+
+	public int methodEnd(int type) {
+		return methodStarts[type + 1];
+	}
+
+	public long methodAddress(int method) {
+		return methodAddresses[method];
+	}
+
+	public String methodReturnType(int method) {
+		return strings.get(methodReturnTypes[method]);
+	}
+
+	public int parameterStart(int method) {
+		return parameterStarts[method];
+	}
+
+	public int parameterEnd(int method) {
+		return parameterStarts[method + 1];
+	}
+
+	public String parameterType(int parameter) {
+		return strings.get(parameterTypes[parameter]);
+	}
+
+	// Heap taken by the columns, for the log
+	public long estimateSize() {
+		return typeNames.length * 25L + fieldNames.length * 29L + methodNames.length * 41L
+				+ parameterNames.length * 8L + typeCount * 64L;
+	}
+
+	@Override
+	public StringTable strings() {
+		return strings;
+	}
+
+	@Override
+	public int size() {
+		return typeCount;
+	}
+
+	@Override
+	public Collection<String> names() {
+		int count = typeCount;
+		return new AbstractList<>() {
+			@Override
+			public String get(int type) {
+				return name(type);
+			}
+
+			@Override
+			public int size() {
+				return count;
+			}
+		};
+	}
+
+	@Override
+	public boolean contains(String name) {
+		return ordinals.containsKey(name);
+	}
+
+	@Override
+	public void loadInto(String name, TypeTable table) throws IOException {
+		table.add(this, ordinals.get(name));
+	}
+
+	@Override
+	public RETypeDefinition load(String name) throws IOException {
+		return load(ordinals.get(name));
+	}
+
+	private void readField(String name, DumpReader reader) throws IOException {
+		var flags = "";
+		int id = 0;
+		int offsetFromBase = 0;
+		int offsetFromFieldPtr = 0;
+		int type = -1;
+		int defaultValue = 0;
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "flags" -> flags = reader.nextString();
+				case "id" -> id = reader.nextInt();
+				case "offset_from_base" -> offsetFromBase = Integer.parseInt(reader.nextString().substring(2), 16);
+				// Only ever used for ValueTypes, can ignore for the most part. Kept it here for
+				// completeness' sake.
+				case "offset_from_fieldptr" -> offsetFromFieldPtr = Integer.parseInt(reader.nextString().substring(2), 16);
+				case "type" -> type = strings.id(reader.nextString());
+				// Only really used for enum members
+				case "default" -> defaultValue = reader.nextIntOr(0);
+				default -> reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		// Everything downstream needs a field's type, a dump without one is broken
+		if (type < 0) {
+			throw reader.error("field " + name + " has no type");
+		}
+
+		if (name.length() > 17 && name.startsWith("<") && name.endsWith(">k__BackingField")) {
+			name = "__" + name.substring(1, name.length() - 16);
+			flags += " | BackingField";
+		}
+		appendField(strings.id(name), strings.id(flags), strings.attributes(flags), id, offsetFromBase,
+				offsetFromFieldPtr, type, defaultValue);
+	}
+
+	private void readMethod(String name, DumpReader reader) throws IOException {
+		var flags = "";
+		String address = null;
+		int id = 0;
+		int invokeId = 0;
+		var implFlags = "";
+		int returnType = -1;
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "flags" -> flags = reader.nextString();
+				case "function" -> address = reader.nextString();
+				case "id" -> id = reader.nextInt();
+				case "invoke_id" -> invokeId = reader.nextInt();
+				case "impl_flags" -> implFlags = reader.nextString();
+				case "params" -> {
+					reader.beginArray();
+					while (reader.hasNext()) {
+						readParameter(name, reader);
+					}
+					reader.endArray();
+				}
+				case "returns" -> {
+					reader.beginObject();
+					while (reader.hasNext()) {
+						if (reader.nextName().equals("type")) {
+							returnType = strings.id(reader.nextString());
+						} else {
+							reader.skipValue();
+						}
+					}
+					reader.endObject();
+				}
+				default -> reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		if (address == null || returnType < 0) {
+			throw reader.error("method " + name + " is missing its address or return type");
+		}
+
+		// Since method names are stored with [Name][ID] we remove the ID to avoid
+		// confusing names in ghidra.
+		// Also constructor names always start with a '.' so we remove that also to
+		// avoid 'Namespace::.Name'
+		var trimmed = (name.startsWith(".") ? name.substring(1) : name).substring(0,
+				name.indexOf(Integer.toString(id)));
+		appendMethod(strings.id(trimmed), strings.id(flags), strings.id(implFlags),
+				strings.attributes(flags) | strings.attributes(implFlags), Long.parseUnsignedLong(address, 16), id,
+				invokeId, returnType);
+	}
+
+	private void readParameter(String method, DumpReader reader) throws IOException {
+		String name = null;
+		String type = null;
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "name" -> name = reader.nextString();
+				case "type" -> type = reader.nextString();
+				default -> reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		if (type == null) {
+			throw reader.error("parameter " + name + " of method " + method + " has no type");
+		}
+		appendParameter(strings.id(name), strings.id(type));
+	}
+
+	// Reads the type of the 'value__' entry out of an object of properties.
+	private static String readValueFieldType(DumpReader reader) throws IOException {
+		String type = null;
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if (!reader.nextName().equals("value__")) {
+				reader.skipValue();
+				continue;
+			}
+
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if (reader.nextName().equals("type")) {
+					type = reader.nextString();
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+		}
+		reader.endObject();
+
+		return type;
+	}
+
+	private static byte kindOf(String parent) {
+		return switch (parent) {
+			case "System.ValueType" -> KIND_VALUE_TYPE;
+			case "System.Enum" -> KIND_ENUM;
+			default -> 0;
+		};
+	}
+
+	// The type's fields and methods are the ones appended since the previous type. Its name
+	// is published last, see the class comment.
+	private int appendType(String name, int size, int parent, int underlyingType, byte kind) {
+		int type = typeCount;
+		if (type + 2 > typeNames.length) {
+			int capacity = typeNames.length * 2;
+			typeNames = Arrays.copyOf(typeNames, capacity);
+			sizes = Arrays.copyOf(sizes, capacity);
+			parents = Arrays.copyOf(parents, capacity);
+			underlyingTypes = Arrays.copyOf(underlyingTypes, capacity);
+			kinds = Arrays.copyOf(kinds, capacity);
+			fieldStarts = Arrays.copyOf(fieldStarts, capacity);
+			methodStarts = Arrays.copyOf(methodStarts, capacity);
+		}
+
+		typeNames[type] = strings.id(name);
+		sizes[type] = size;
+		parents[type] = parent;
+		underlyingTypes[type] = underlyingType;
+		kinds[type] = kind;
+		fieldStarts[type + 1] = fieldCount;
+		methodStarts[type + 1] = methodCount;
+		typeCount++;
+
+		ordinals.put(name, type);
+		return type;
+	}
+
+	private void appendField(int name, int flags, int attributes, int id, int offsetFromBase, int offsetFromFieldPtr,
+			int type, int defaultValue) {
+		int field = fieldCount;
+		if (field == fieldNames.length) {
+			int capacity = field * 2;
+			fieldNames = Arrays.copyOf(fieldNames, capacity);
+			fieldFlags = Arrays.copyOf(fieldFlags, capacity);
+			fieldAttributes = Arrays.copyOf(fieldAttributes, capacity);
+			fieldIds = Arrays.copyOf(fieldIds, capacity);
+			fieldOffsets = Arrays.copyOf(fieldOffsets, capacity);
+			fieldPtrOffsets = Arrays.copyOf(fieldPtrOffsets, capacity);
+			fieldTypes = Arrays.copyOf(fieldTypes, capacity);
+			fieldDefaults = Arrays.copyOf(fieldDefaults, capacity);
+		}
+
+		fieldNames[field] = name;
+		fieldFlags[field] = flags;
+		fieldAttributes[field] = (byte) attributes;
+		fieldIds[field] = id;
+		fieldOffsets[field] = offsetFromBase;
+		fieldPtrOffsets[field] = offsetFromFieldPtr;
+		fieldTypes[field] = type;
+		fieldDefaults[field] = defaultValue;
+		fieldCount++;
+	}
+
+	// The method's parameters are the ones appended since the previous method
+	private void appendMethod(int name, int flags, int implFlags, int attributes, long address, int id,
+			int invokeId, int returnType) {
+		int method = methodCount;
+		if (method + 2 > methodNames.length) {
+			int capacity = methodNames.length * 2;
+			methodNames = Arrays.copyOf(methodNames, capacity);
+			methodFlags = Arrays.copyOf(methodFlags, capacity);
+			methodImplFlags = Arrays.copyOf(methodImplFlags, capacity);
+			methodAttributes = Arrays.copyOf(methodAttributes, capacity);
+			methodAddresses = Arrays.copyOf(methodAddresses, capacity);
+			methodIds = Arrays.copyOf(methodIds, capacity);
+			methodInvokeIds = Arrays.copyOf(methodInvokeIds, capacity);
+			methodReturnTypes = Arrays.copyOf(methodReturnTypes, capacity);
+			parameterStarts = Arrays.copyOf(parameterStarts, capacity);
+		}
+
+		methodNames[method] = name;
+		methodFlags[method] = flags;
+		methodImplFlags[method] = implFlags;
+		methodAttributes[method] = (byte) attributes;
+		methodAddresses[method] = address;
+		methodIds[method] = id;
+		methodInvokeIds[method] = invokeId;
+		methodReturnTypes[method] = returnType;
+		parameterStarts[method + 1] = parameterCount;
+		methodCount++;
+	}
+
+	private void appendParameter(int name, int type) {
+		int parameter = parameterCount;
+		if (parameter == parameterNames.length) {
+			parameterNames = Arrays.copyOf(parameterNames, parameter * 2);
+			parameterTypes = Arrays.copyOf(parameterTypes, parameter * 2);
+		}
+
+		parameterNames[parameter] = name;
+		parameterTypes[parameter] = type;
+		parameterCount++;
+	}
+}